@@ -5,5 +5,25 @@ CREATE TABLE `gateway_routes` (
   `filters` text,
   `route_order` int NOT NULL DEFAULT '0',
   `enabled` tinyint(1) NOT NULL DEFAULT '1',
+  `content_hash` varchar(64) DEFAULT NULL,
+  `updated_at` datetime(6) DEFAULT NULL,
   PRIMARY KEY (`id`)
-) ENGINE=InnoDB
\ No newline at end of file
+) ENGINE=InnoDB;
+
+CREATE TABLE `tenant_unit` (
+  `tenant_id` varchar(100) NOT NULL,
+  `unit` varchar(50) NOT NULL,
+  PRIMARY KEY (`tenant_id`)
+) ENGINE=InnoDB;
+
+INSERT INTO `tenant_unit` (`tenant_id`, `unit`) VALUES ('LA', 'LA'), ('LB', 'LB');
+
+CREATE TABLE `unit_gateway` (
+  `unit` varchar(50) NOT NULL,
+  `gateway_uri` varchar(255) NOT NULL,
+  `enabled` tinyint(1) NOT NULL DEFAULT '1',
+  `pool_settings` text,
+  PRIMARY KEY (`unit`)
+) ENGINE=InnoDB;
+
+INSERT INTO `unit_gateway` (`unit`, `gateway_uri`, `enabled`) VALUES ('LA', 'https://httpbin.org', 1), ('LB', 'http://localhost:8888/admin/routes/hello', 1);
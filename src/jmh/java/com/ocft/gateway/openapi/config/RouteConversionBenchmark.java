@@ -0,0 +1,52 @@
+package com.ocft.gateway.openapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ocft.gateway.openapi.admin.RouteDefinitionEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全量从数据库加载路由时，把数据库行转换成 RouteDefinition (解析断言和过滤器 JSON) 的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteConversionBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int routeCount;
+
+    private DatabaseRouteDefinitionRepository repository;
+    private List<RouteDefinitionEntity> entities;
+
+    @Setup
+    public void setup() throws Exception {
+        var objectMapper = new ObjectMapper();
+        // 转换只用到 ObjectMapper，其余依赖在这里不会被访问
+        repository = new DatabaseRouteDefinitionRepository(null, objectMapper, null, null, null, null);
+        entities = RouteFixtures.entities(routeCount, objectMapper);
+    }
+
+    @Benchmark
+    public void convertAll(Blackhole blackhole) {
+        for (RouteDefinitionEntity entity : entities) {
+            blackhole.consume(repository.convertToRouteDefinition(entity));
+        }
+    }
+}
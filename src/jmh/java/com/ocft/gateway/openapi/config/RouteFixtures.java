@@ -0,0 +1,86 @@
+package com.ocft.gateway.openapi.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ocft.gateway.openapi.admin.FilterInfo;
+import com.ocft.gateway.openapi.admin.RouteDefinitionEntity;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试使用的路由数据，形状与管理后台保存的路由一致：一个 Path 断言加两个过滤器 (其中一个被禁用)
+ */
+final class RouteFixtures {
+
+    private RouteFixtures() {
+    }
+
+    static String routeId(int i) {
+        return "route-" + i;
+    }
+
+    static String pathPattern(int i) {
+        return "/svc-" + i + "/api/**";
+    }
+
+    static List<RouteDefinition> definitions(int count) {
+        List<RouteDefinition> definitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var rd = new RouteDefinition();
+            rd.setId(routeId(i));
+            rd.setUri(URI.create("lb://service-" + i));
+            rd.setOrder(i);
+            rd.setPredicates(List.of(new PredicateDefinition("Path=" + pathPattern(i))));
+            definitions.add(rd);
+        }
+        return definitions;
+    }
+
+    static List<RouteDefinitionEntity> entities(int count, ObjectMapper objectMapper) throws JsonProcessingException {
+        List<RouteDefinitionEntity> entities = new ArrayList<>(count);
+        for (RouteDefinition rd : definitions(count)) {
+            var stripPrefix = new FilterInfo();
+            stripPrefix.setName("StripPrefix");
+            stripPrefix.setArgs(Map.of("_genkey_0", "1"));
+            var timestamp = new FilterInfo();
+            timestamp.setName("AddTimestamp");
+            timestamp.setArgs(Map.of("headerName", "X-Request-Timestamp"));
+            timestamp.setEnabled(false);
+
+            var entity = new RouteDefinitionEntity();
+            entity.setId(rd.getId());
+            entity.setUri(rd.getUri().toString());
+            entity.setRouteOrder(rd.getOrder());
+            entity.setPredicates(objectMapper.writeValueAsString(rd.getPredicates()));
+            entity.setFilters(objectMapper.writeValueAsString(List.of(stripPrefix, timestamp)));
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * 与 RouteDefinitionRouteLocator 的产物等价的路由：同样使用 PathRoutePredicateFactory 生成断言
+     */
+    static List<Route> routes(List<RouteDefinition> definitions) {
+        var pathFactory = new PathRoutePredicateFactory();
+        List<Route> routes = new ArrayList<>(definitions.size());
+        for (RouteDefinition rd : definitions) {
+            var config = new PathRoutePredicateFactory.Config()
+                    .setPatterns(List.copyOf(rd.getPredicates().get(0).getArgs().values()));
+            routes.add(Route.async()
+                    .id(rd.getId())
+                    .uri(rd.getUri())
+                    .order(rd.getOrder())
+                    .asyncPredicate(pathFactory.applyAsync(config))
+                    .build());
+        }
+        return routes;
+    }
+}
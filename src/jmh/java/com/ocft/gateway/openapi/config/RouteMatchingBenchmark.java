@@ -0,0 +1,88 @@
+package com.ocft.gateway.openapi.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 为一个请求找到匹配路由的开销：RoutePredicateHandlerMapping 默认的逐条断言 (linear)
+ * 与 {@link RouteMatchIndex} 先按前缀树筛选候选再执行断言 (indexed) 的对比。
+ * <p>
+ * {@code last} 命中表中的最后一条路由，是逐条匹配的最坏情况；{@code miss} 不命中任何路由。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteMatchingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int routeCount;
+
+    @Param({"last", "miss"})
+    private String target;
+
+    private List<Route> routes;
+    private RouteMatchIndex index;
+    private String url;
+
+    @Setup
+    public void setup() {
+        List<RouteDefinition> definitions = RouteFixtures.definitions(routeCount);
+        routes = RouteFixtures.routes(definitions);
+        Map<String, RouteDefinition> definitionsById = definitions.stream()
+                .collect(Collectors.toMap(RouteDefinition::getId, Function.identity()));
+        index = RouteMatchIndex.build(routes, definitionsById);
+        url = "last".equals(target)
+                ? "http://gateway/svc-" + (routeCount - 1) + "/api/orders/123"
+                : "http://gateway/unknown/api/orders/123";
+    }
+
+    @Benchmark
+    public Route linear() {
+        ServerWebExchange exchange = exchange();
+        return firstMatch(routes, exchange).block();
+    }
+
+    @Benchmark
+    public Route indexed() {
+        ServerWebExchange exchange = exchange();
+        return firstMatch(index.candidates(exchange.getRequest()), exchange).block();
+    }
+
+    private ServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(url));
+    }
+
+    /**
+     * 与 RoutePredicateHandlerMapping#lookupRoute 相同的求值方式
+     */
+    private static Mono<Route> firstMatch(List<Route> candidates, ServerWebExchange exchange) {
+        return Flux.fromIterable(candidates)
+                .concatMap(route -> Mono.just(route).filterWhen(r -> r.getPredicate().apply(exchange)))
+                .next();
+    }
+}
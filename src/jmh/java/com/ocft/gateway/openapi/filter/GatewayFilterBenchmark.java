@@ -0,0 +1,136 @@
+package com.ocft.gateway.openapi.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ocft.gateway.openapi.accesslog.AccessLogWriter;
+import com.ocft.gateway.openapi.filter.global.FinalRequestLoggerGlobalFilter;
+import com.ocft.gateway.openapi.filter.global.RequestLoggingGlobalFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自定义过滤器在 mock exchange 上的单次执行开销。
+ * <p>
+ * 每次调用都会新建 exchange，{@code exchangeOnly} 给出这部分的基线；过滤器本身的开销是两者之差。
+ * 日志保持 INFO 级别但输出被丢弃 (见 logback-test.xml)。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayFilterBenchmark {
+
+    private static final String URL = "http://gateway/api/orders/123?expand=items&page=2";
+    private static final String REQUEST_BODY = "{\"orderId\":\"123\",\"items\":[{\"sku\":\"A-1\",\"qty\":2},{\"sku\":\"B-7\",\"qty\":1}]}";
+    private static final byte[] RESPONSE_BODY = ("{\"status\":\"OK\",\"data\":{\"orderId\":\"123\",\"total\":42.5,\"items\":"
+            + "[{\"sku\":\"A-1\",\"qty\":2},{\"sku\":\"B-7\",\"qty\":1}]}}").getBytes(StandardCharsets.UTF_8);
+
+    private final GatewayFilterChain passThrough = exchange -> Mono.empty();
+    /**
+     * 模拟下游写出响应体，使响应装饰器的捕获逻辑被执行
+     */
+    private final GatewayFilterChain writeResponse = exchange -> {
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return exchange.getResponse()
+                .writeWith(Mono.fromSupplier(() -> exchange.getResponse().bufferFactory().wrap(RESPONSE_BODY)));
+    };
+    private final CaptureResponseBodyGatewayFilterFactory.Policy capturePolicy =
+            new CaptureResponseBodyGatewayFilterFactory.Policy(64, List.of(MediaType.APPLICATION_JSON));
+    /**
+     * 读取请求体，与真实的路由过滤器一样消费缓存下来的 body
+     */
+    private final GatewayFilterChain readRequest = exchange -> exchange.getRequest().getBody().then();
+
+    private AccessLogWriter accessLogWriter;
+    private FinalRequestLoggerGlobalFilter finalRequestLogger;
+    private RequestLoggingGlobalFilter requestLogging;
+    private GatewayFilter addTimestamp;
+
+    @Setup
+    public void setup() {
+        accessLogWriter = new AccessLogWriter(new ObjectMapper(), 8192, 256, Duration.ofMillis(10));
+        finalRequestLogger = new FinalRequestLoggerGlobalFilter(accessLogWriter);
+        requestLogging = new RequestLoggingGlobalFilter(4096);
+        addTimestamp = new AddTimestampGatewayFilterFactory().apply(new AddTimestampGatewayFilterFactory.Config());
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        accessLogWriter.shutdown();
+    }
+
+    @Benchmark
+    public Object exchangeOnly() {
+        return getExchange();
+    }
+
+    @Benchmark
+    public Object finalRequestLogger() {
+        MockServerWebExchange exchange = getExchange();
+        finalRequestLogger.filter(exchange, writeResponse).block();
+        return exchange;
+    }
+
+    /**
+     * 路由开启了响应体捕获，且响应体超过捕获上限 (会被截断)
+     */
+    @Benchmark
+    public Object finalRequestLoggerCapture() {
+        MockServerWebExchange exchange = getExchange();
+        exchange.getAttributes().put(CaptureResponseBodyGatewayFilterFactory.CAPTURE_POLICY_ATTR, capturePolicy);
+        finalRequestLogger.filter(exchange, writeResponse).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public Object requestLoggingGet() {
+        MockServerWebExchange exchange = getExchange();
+        requestLogging.filter(exchange, passThrough).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public Object requestLoggingPost() {
+        MockServerWebExchange exchange = postExchange();
+        requestLogging.filter(exchange, readRequest).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public Object addTimestamp() {
+        MockServerWebExchange exchange = getExchange();
+        addTimestamp.filter(exchange, passThrough).block();
+        return exchange;
+    }
+
+    private static MockServerWebExchange getExchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(URL));
+    }
+
+    private static MockServerWebExchange postExchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.post(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(REQUEST_BODY));
+    }
+}
@@ -0,0 +1,118 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ocft.gateway.openapi.concurrency.ConcurrencyLimiterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UnitSelection 过滤器热路径的吞吐量与分配速率，配合 {@code -prof gc} 比较 gc.alloc.rate.norm (B/op)。
+ * <ul>
+ *     <li>{@code rewriteBaseline}: 优化前的做法，UriComponentsBuilder 改写 URI 并为每个请求新建 Route</li>
+ *     <li>{@code rewriteCached}: 现在的做法，按预解析的地址拼接 URI，复用单元上缓存的 Route</li>
+ *     <li>{@code filter} / {@code exchangeOnly}: 完整执行一次过滤器；两者之差是过滤器本身的开销 (去掉构造 mock exchange 的部分)</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnitSelectionBenchmark {
+
+    private static final String TENANT_ID = "tenant-1";
+    private static final String REQUEST_URL = "http://l1-gateway/api/orders/123?expand=items&page=2";
+
+    private final GatewayFilterChain chain = exchange -> Mono.empty();
+    private final URI originalUri = URI.create(REQUEST_URL);
+
+    private GatewayFilter filter;
+    private UnitInstance target;
+
+    @Setup
+    public void setup() {
+        var entity = new TenantUnitEntity();
+        entity.setTenantId(TENANT_ID);
+        entity.setUnit("LA");
+        TenantUnitJpaRepository tenantRepository = (TenantUnitJpaRepository) Proxy.newProxyInstance(
+                TenantUnitJpaRepository.class.getClassLoader(),
+                new Class<?>[]{TenantUnitJpaRepository.class},
+                (proxy, method, args) -> {
+                    if ("findById".equals(method.getName())) {
+                        return TENANT_ID.equals(args[0]) ? Optional.of(entity) : Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        var mappingService = new TenantUnitMappingService(tenantRepository, null, 1000, Duration.ofHours(1), Duration.ofHours(1));
+        var registry = new UnitGatewayRegistry(null, null, new ObjectMapper());
+        registry.install(Map.of("LA", "http://l2-gateway-of-unit-a.com"));
+
+        // 预热缓存，基准测试只测命中缓存的路径
+        mappingService.getUnitByTenantId(TENANT_ID).block();
+        target = registry.lookup("LA").select();
+        var concurrencyLimiters = new ConcurrencyLimiterRegistry(true, 100, 10, 2000, Duration.ofMillis(500), 10, Duration.ofSeconds(1));
+        filter = new UnitSelectionGatewayFilterFactory(mappingService, registry, concurrencyLimiters).apply(new Object());
+    }
+
+    @Benchmark
+    public void rewriteBaseline(Blackhole blackhole) {
+        URI newUri = UriComponentsBuilder.fromUri(target.getGatewayUri())
+                .path(originalUri.getRawPath())
+                .query(originalUri.getRawQuery())
+                .build(true)
+                .toUri();
+        Route route = Route.async()
+                .id(UnitSelectionGatewayFilterFactory.DYNAMIC + target.getGatewayUri())
+                .uri(newUri)
+                .predicate(x -> true)
+                .build();
+        blackhole.consume(newUri);
+        blackhole.consume(route);
+    }
+
+    @Benchmark
+    public void rewriteCached(Blackhole blackhole) {
+        blackhole.consume(target.rewrite(originalUri));
+        blackhole.consume(target.getRoute());
+    }
+
+    @Benchmark
+    public Object exchangeOnly() {
+        return newExchange();
+    }
+
+    @Benchmark
+    public Object filter() {
+        MockServerWebExchange exchange = newExchange();
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    private static MockServerWebExchange newExchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(REQUEST_URL).header("X-Tenant-ID", TENANT_ID));
+    }
+}
@@ -0,0 +1,23 @@
+package com.ocft.gateway.openapi.accesslog;
+
+import java.net.URI;
+
+/**
+ * 一条访问日志。在请求结束时于事件循环线程上创建，只保存原始值，格式化交给 {@link AccessLogWriter} 的写线程。
+ *
+ * @param timestamp    请求开始时间 (epoch millis)
+ * @param method       请求方法
+ * @param originalUri  客户端请求的 URI
+ * @param routedUri    最终转发的 URI，未匹配到路由时为 null
+ * @param status       响应状态码，未知时为 0
+ * @param durationMs   耗时 (毫秒)
+ * @param responseBody 捕获到的响应体，未捕获时为 null
+ */
+public record AccessLogEvent(long timestamp,
+                             String method,
+                             URI originalUri,
+                             URI routedUri,
+                             int status,
+                             long durationMs,
+                             String responseBody) {
+}
@@ -0,0 +1,85 @@
+package com.ocft.gateway.openapi.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界、无锁的多生产者单消费者环形缓冲区。
+ * <p>
+ * 每个槽位带一个序号：序号等于生产者的位置时槽位可写，等于位置 + 1 时可读 (Vyukov 的有界队列)。
+ * 生产者之间只在 {@code tail} 上做一次 CAS，缓冲区满时 {@link #offer(Object)} 立即返回 false，从不阻塞调用线程。
+ * {@link #poll()} 只允许一个消费线程调用。
+ */
+final class AccessLogRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 只由消费线程写入
+     */
+    private volatile long head;
+
+    /**
+     * @param requestedCapacity 容量，向上取整到 2 的幂
+     */
+    AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // 发布：序号的写入保证元素对消费线程可见
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // 消费线程还没有腾出这个槽位：缓冲区已满
+                return false;
+            } else {
+                // 其他生产者已经占用了这个位置
+                position = tail.get();
+            }
+        }
+    }
+
+    E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // 把槽位交还给下一圈的生产者
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 近似的元素数量，仅用于监控
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity(), tail.get() - head));
+    }
+}
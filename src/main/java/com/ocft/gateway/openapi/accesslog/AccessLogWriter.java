@@ -0,0 +1,143 @@
+package com.ocft.gateway.openapi.accesslog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志管道。
+ * <p>
+ * 过滤器在事件循环线程上只调用 {@link #publish(AccessLogEvent)}，把事件放进一个有界的无锁环形缓冲区后立即返回；
+ * 格式化和写出都由专用的写线程完成。写线程每次最多取出 {@code gateway.access-log.batch-size} 条事件，
+ * 格式化为 JSON Lines 后通过名为 {@code access-log} 的 logger 一次写出，因此 appender 变慢只会让缓冲区堆积，
+ * 不会拖慢请求。缓冲区满时新事件被直接丢弃并计数，应用关闭时会先把缓冲区中剩余的事件写完。
+ * <p>
+ * 建议为 {@code access-log} logger 单独配置 {@code %msg%n} 格式的 appender，使输出是标准的 JSON Lines。
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access-log");
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ObjectMapper objectMapper;
+    private final AccessLogRingBuffer<AccessLogEvent> buffer;
+    private final int batchSize;
+    private final long idleWaitNanos;
+    private final Thread writerThread;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile boolean running = true;
+
+    public AccessLogWriter(ObjectMapper objectMapper,
+                           @Value("${gateway.access-log.buffer-size:8192}") int bufferSize,
+                           @Value("${gateway.access-log.batch-size:256}") int batchSize,
+                           @Value("${gateway.access-log.idle-wait:10ms}") Duration idleWait) {
+        this.objectMapper = objectMapper;
+        this.buffer = new AccessLogRingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.idleWaitNanos = idleWait.toNanos();
+        this.writerThread = new Thread(this::drainLoop, "access-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        log.info("Access log pipeline started with a buffer of {} events.", buffer.capacity());
+    }
+
+    /**
+     * 提交一条访问日志，从不阻塞；缓冲区已满时丢弃该事件
+     * @return 是否已进入缓冲区
+     */
+    public boolean publish(AccessLogEvent event) {
+        if (buffer.offer(event)) {
+            published.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        stats.put("buffered", (long) buffer.size());
+        stats.put("capacity", (long) buffer.capacity());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        log.info("Access log pipeline stopped: {}", getStats());
+    }
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(batchSize * 256);
+        long reportedDrops = 0;
+        long lastReport = System.nanoTime();
+        while (running) {
+            if (drain(batch) == 0) {
+                LockSupport.parkNanos(this, idleWaitNanos);
+            }
+            // 溢出告警最多每秒一次
+            long now = System.nanoTime();
+            if (now - lastReport >= DROP_REPORT_INTERVAL_NANOS) {
+                long drops = dropped.sum();
+                if (drops != reportedDrops) {
+                    log.warn("Access log buffer overflowed, {} events dropped so far.", drops);
+                    reportedDrops = drops;
+                }
+                lastReport = now;
+            }
+        }
+        // 关闭时把剩余事件全部写出
+        while (drain(batch) > 0) {
+            // keep draining
+        }
+    }
+
+    private int drain(StringBuilder batch) {
+        int count = 0;
+        AccessLogEvent event;
+        while (count < batchSize && (event = buffer.poll()) != null) {
+            try {
+                String line = objectMapper.writeValueAsString(event);
+                if (count > 0) {
+                    batch.append('\n');
+                }
+                batch.append(line);
+                count++;
+            } catch (JsonProcessingException e) {
+                log.error("Failed to format access log event {}", event, e);
+            }
+        }
+        if (count > 0) {
+            try {
+                ACCESS_LOG.info(batch.toString());
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} access log events.", count, e);
+            }
+            written.add(count);
+            batch.setLength(0);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.accesslog.AccessLogWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看本节点异步访问日志管道的状态
+ */
+@RestController
+@RequestMapping("/admin/access-log")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class AccessLogAdminController {
+
+    private final AccessLogWriter accessLogWriter;
+
+    /**
+     * 获取本节点的访问日志统计：提交、丢弃、已写出以及缓冲区中的事件数
+     * @return 统计计数
+     */
+    @GetMapping("/stats")
+    public Mono<Map<String, Long>> getStats() {
+        return Mono.just(accessLogWriter.getStats());
+    }
+}
@@ -0,0 +1,41 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.concurrency.ConcurrencyLimiterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看本节点按单元和按路由的自适应并发限制
+ */
+@RestController
+@RequestMapping("/admin/concurrency")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitController {
+
+    private final ConcurrencyLimiterRegistry concurrencyLimiters;
+
+    /**
+     * 获取每个单元 / 路由的当前上限、并发数、放行/拒绝/过载次数，以及最近的上限调整历史 (时间、上限、窗口 RTT、长期 RTT、并发峰值)
+     * @return 按 units / routes 分组的限制器状态
+     */
+    @GetMapping
+    public Mono<Map<String, Object>> getLimits() {
+        return Mono.just(concurrencyLimiters.snapshot());
+    }
+
+    /**
+     * 丢弃所有限制器，之后的请求从初始上限重新开始
+     */
+    @PostMapping("/reset")
+    public Mono<Void> reset() {
+        return Mono.fromRunnable(concurrencyLimiters::reset);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.hedge.HedgeRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看本节点对冲请求的状态
+ */
+@RestController
+@RequestMapping("/admin/hedge")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class HedgeAdminController {
+
+    private final HedgeRegistry hedgeRegistry;
+
+    /**
+     * 获取每条开启对冲的路由的当前等待时间、请求数、对冲数、对冲胜出数、预算用完的次数以及剩余预算
+     * @return 按路由 ID 分组的统计
+     */
+    @GetMapping("/stats")
+    public Mono<Map<String, Object>> getStats() {
+        return Mono.just(hedgeRegistry.snapshot());
+    }
+}
@@ -0,0 +1,94 @@
+package com.ocft.gateway.openapi.admin;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * 基于 JPA 的路由存储 (默认)。JPA 是阻塞 IO，每次调用都在弹性线程池上执行，以避免阻塞 Netty 的事件循环线程
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.routes", name = "store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRouteStore implements RouteStore {
+
+    private final RouteDefinitionJpaRepository jpaRepository;
+    private final RouteBatchJdbcRepository batchJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public Mono<RouteDefinitionEntity> findById(String id) {
+        return blocking(() -> jpaRepository.findById(id).orElse(null));
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findAllById(Collection<String> ids) {
+        return blockingMany(() -> jpaRepository.findAllById(ids));
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findAll() {
+        return blockingMany(jpaRepository::findAll);
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findEnabled() {
+        return blockingMany(() -> jpaRepository.findByEnabled(true));
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> search(String query) {
+        return blockingMany(() -> jpaRepository.findByIdContainingIgnoreCaseOrUriContainingIgnoreCase(query, query));
+    }
+
+    @Override
+    public Flux<RouteContentHash> findEnabledContentHashes() {
+        return blockingMany(jpaRepository::findEnabledContentHashes);
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findPageAfter(String after, int limit) {
+        return blockingMany(() -> jpaRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public Flux<RouteSummaryPayload> findSummariesAfter(String after, int limit) {
+        return blockingMany(() -> jpaRepository.findSummariesAfter(after, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public Mono<Void> save(RouteDefinitionEntity entity) {
+        return blocking(() -> jpaRepository.save(entity)).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return Mono.fromRunnable(() -> jpaRepository.deleteById(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    @Override
+    public Mono<Integer> upsertAll(List<RouteDefinitionEntity> entities) {
+        return blocking(() -> transactionTemplate.execute(status -> batchJdbcRepository.upsertAll(entities)));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <T> Flux<T> blockingMany(Callable<? extends Iterable<T>> call) {
+        return Mono.<Iterable<T>>fromCallable(call::call)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable);
+    }
+}
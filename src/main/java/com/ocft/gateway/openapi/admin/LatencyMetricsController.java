@@ -0,0 +1,42 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.metrics.LatencyRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看本节点按路由和按单元统计的延迟分布 (p50/p99/p999/max，单位毫秒)
+ */
+@RestController
+@RequestMapping("/admin/metrics/latency")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class LatencyMetricsController {
+
+    private final LatencyRecorder latencyRecorder;
+
+    /**
+     * 获取当前统计窗口的延迟分布
+     * @return 按路由和单元分组的 total/upstream/gateway 延迟摘要
+     */
+    @GetMapping
+    public Mono<Map<String, Object>> getLatency() {
+        return Mono.just(latencyRecorder.snapshot(false));
+    }
+
+    /**
+     * 结束当前统计窗口并开始一个新窗口
+     * @return 被结束的窗口的延迟分布
+     */
+    @PostMapping("/reset")
+    public Mono<Map<String, Object>> reset() {
+        return Mono.just(latencyRecorder.snapshot(true));
+    }
+}
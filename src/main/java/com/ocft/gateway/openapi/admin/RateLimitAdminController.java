@@ -0,0 +1,32 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.ratelimit.TokenBucketRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看本节点令牌桶限流的状态
+ */
+@RestController
+@RequestMapping("/admin/rate-limit")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class RateLimitAdminController {
+
+    private final TokenBucketRateLimiter rateLimiter;
+
+    /**
+     * 获取本节点的限流统计：放行、拒绝、向 Redis 租借的次数和令牌数、桶已空的租借次数、租借失败次数以及本地桶的数量
+     * @return 统计计数
+     */
+    @GetMapping("/stats")
+    public Mono<Map<String, Long>> getStats() {
+        return Mono.just(rateLimiter.getStats());
+    }
+}
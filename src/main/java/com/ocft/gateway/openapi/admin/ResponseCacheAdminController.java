@@ -0,0 +1,41 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.cache.ResponseCacheStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看和清空本节点的响应缓存
+ */
+@RestController
+@RequestMapping("/admin/response-cache")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class ResponseCacheAdminController {
+
+    private final ResponseCacheStore responseCacheStore;
+
+    /**
+     * 获取本节点的响应缓存统计：命中率、命中/未命中/304/写入/不可缓存/绕过的次数，以及条目数和占用的字节数
+     * @return 统计数据
+     */
+    @GetMapping("/stats")
+    public Mono<Map<String, Object>> getStats() {
+        return Mono.just(responseCacheStore.getStats());
+    }
+
+    /**
+     * 清空本节点的响应缓存
+     */
+    @DeleteMapping
+    public Mono<Void> clear() {
+        return Mono.fromRunnable(responseCacheStore::clear);
+    }
+}
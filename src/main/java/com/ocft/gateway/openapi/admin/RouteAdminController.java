@@ -4,12 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -35,6 +37,29 @@ public class RouteAdminController {
         return routeAdminService.getAllRoutes(query);
     }
 
+    /**
+     * 按路由 ID 游标分页获取路由。默认只返回列表页需要的字段 (不解析断言和过滤器)，full=true 时返回完整定义
+     * @param after 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页条数，最大 1000
+     * @param full 是否返回完整的路由定义
+     * @return 一页路由和下一页的游标 (最后一页为 null)
+     */
+    @GetMapping("/page")
+    public Mono<? extends RoutePage<?>> getRoutePage(@RequestParam(value = "after", required = false) String after,
+                                                     @RequestParam(value = "size", defaultValue = "100") int size,
+                                                     @RequestParam(value = "full", defaultValue = "false") boolean full) {
+        return full ? routeAdminService.getRoutes(after, size) : routeAdminService.getRouteSummaries(after, size);
+    }
+
+    /**
+     * 以 NDJSON 逐行流式输出所有路由摘要，服务端按页读取数据库，不会一次性读入整张表
+     * @return A Flux of route summaries ordered by id
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RouteSummaryPayload> streamRoutes() {
+        return routeAdminService.streamRouteSummaries();
+    }
+
     /**
      * 创建一个新的路由
      * @param payload 路由定义负载
@@ -50,6 +75,31 @@ public class RouteAdminController {
                 });
     }
 
+    /**
+     * 批量导入路由，请求体可以是 JSON 数组，也可以是 NDJSON (每行一个路由)
+     * @param payloads 路由定义负载流
+     * @return 导入的路由数量
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Object>> importRoutes(@RequestBody Flux<RouteDefinitionPayload> payloads) {
+        return routeAdminService.importRoutes(payloads)
+                .<ResponseEntity<Object>>map(count -> ResponseEntity.ok(Map.of("imported", count)))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())))
+                .onErrorResume(e -> {
+                    log.error("Failed to import routes.", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to import routes: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 批量导出所有路由。Accept 为 application/x-ndjson 时逐行流式输出，否则输出 JSON 数组
+     * @return A Flux of route definition payloads
+     */
+    @GetMapping(value = "/batch", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<RouteDefinitionPayload> exportRoutes() {
+        return routeAdminService.exportRoutes();
+    }
+
     /**
      * 更新一个已有的路由
      * @param id 路由ID
@@ -100,6 +150,15 @@ public class RouteAdminController {
         return Mono.just(ResponseEntity.ok().build());
     }
 
+    /**
+     * 获取本节点的路由刷新统计：请求次数与实际执行的路由重建次数
+     * @return 统计计数
+     */
+    @GetMapping("/refresh/stats")
+    public Mono<Map<String, Long>> getRefreshStats() {
+        return Mono.just(routeAdminService.getRefreshStats());
+    }
+
 
     @PostMapping("/hello")
     public Mono<ResponseEntity<RouteDefinitionPayload>> hello() {
@@ -3,6 +3,8 @@ package com.ocft.gateway.openapi.admin;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 /**
  * 路由管理服务接口
  */
@@ -31,8 +33,49 @@ public interface RouteAdminService {
 
     Mono<RouteDefinitionPayload> getById(String routeId);
 
+    /**
+     * 按路由 ID 做游标 (keyset) 分页，只读取列表页需要的列，不解析断言和过滤器
+     * @param after 上一页最后一条路由的 ID，为空时从第一页开始
+     * @param size 每页条数
+     * @return 一页路由摘要和下一页的游标
+     */
+    Mono<RoutePage<RouteSummaryPayload>> getRouteSummaries(String after, int size);
+
+    /**
+     * 按路由 ID 做游标 (keyset) 分页，返回完整的路由定义
+     * @param after 上一页最后一条路由的 ID，为空时从第一页开始
+     * @param size 每页条数
+     * @return 一页路由定义和下一页的游标
+     */
+    Mono<RoutePage<RouteDefinitionPayload>> getRoutes(String after, int size);
+
+    /**
+     * 逐页读取并流式输出所有路由摘要，内存中最多只有一页数据
+     * @return A Flux of route summaries ordered by id
+     */
+    Flux<RouteSummaryPayload> streamRouteSummaries();
+
+    /**
+     * 批量导入路由：JDBC 批量写入数据库，一次性写入 Redis，整批只发布一条变更通知。
+     * 写入前先校验整批 (id、可解析的绝对 uri、谓词)，任何一条不合法时整批都不写入
+     * @param payloads 路由定义负载流 (JSON 数组或 NDJSON)
+     * @return 导入的路由数量；校验失败时以 {@link IllegalArgumentException} 结束，消息中指明是哪一条
+     */
+    Mono<Integer> importRoutes(Flux<RouteDefinitionPayload> payloads);
+
+    /**
+     * 批量导出所有路由 (包括已禁用的路由)
+     * @return A Flux of route definition payloads
+     */
+    Flux<RouteDefinitionPayload> exportRoutes();
+
     /**
      * 手动触发一次全局路由刷新事件
      */
     void refreshRoutes();
+
+    /**
+     * 获取本节点路由刷新的统计计数 (请求次数、实际执行次数、被合并的次数、被忽略的回声消息数)
+     */
+    Map<String, Long> getRefreshStats();
 }
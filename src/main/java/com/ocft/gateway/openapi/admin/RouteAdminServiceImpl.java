@@ -3,24 +3,36 @@ package com.ocft.gateway.openapi.admin;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ocft.gateway.openapi.config.RedisRouteDefinitionRepository;
+import com.ocft.gateway.openapi.config.RouteChangeMessage;
+import com.ocft.gateway.openapi.config.RouteChangeNotifier;
+import com.ocft.gateway.openapi.config.RouteRefreshCoordinator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.cloud.gateway.filter.FilterDefinition;
 import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinition;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Sinks;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,26 +41,63 @@ import java.util.stream.Collectors;
 @ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
 public class RouteAdminServiceImpl implements RouteAdminService {
 
-    private final RouteDefinitionJpaRepository jpaRepository;
+    /**
+     * 单页最大条数，流式输出时也按这个大小逐页读取
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final RouteStore routeStore;
     private final RedisRouteDefinitionRepository redisRepository;
     private final ObjectMapper objectMapper;
-    private final ApplicationEventPublisher eventPublisher;
+    private final RouteChangeNotifier changeNotifier;
+    private final RouteRefreshCoordinator refreshCoordinator;
+
+    /**
+     * 搜索索引由路由变更事件增量维护；事件先进入队列，再用 concatMap 逐个应用，保证事件按顺序生效
+     */
+    private final RouteSearchIndex searchIndex = new RouteSearchIndex();
+    private final Sinks.Many<RouteChangeMessage> searchIndexUpdates = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable searchIndexSubscription;
+
+    @PostConstruct
+    public void buildSearchIndex() {
+        searchIndexSubscription = searchIndexUpdates.asFlux()
+                .startWith(RouteChangeMessage.full(RouteChangeMessage.UNKNOWN_VERSION))
+                .concatMap(this::applyToSearchIndex)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopSearchIndex() {
+        if (searchIndexSubscription != null) {
+            searchIndexSubscription.dispose();
+        }
+    }
+
+    /**
+     * 只负责把路由变更放入搜索索引的更新队列，见 {@link #applyToSearchIndex}
+     */
+    @EventListener
+    public void onRouteChange(RouteChangeMessage message) {
+        // 事件可能同时来自多个线程，并发的 emit 在这里自旋重试
+        searchIndexUpdates.emitNext(message, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
 
     @Override
     public Flux<RouteDefinitionPayload> getAllRoutes(String query) {
+        // Searches are answered from the in-memory index once it has been built
+        if (StringUtils.hasText(query) && searchIndex.isReady()) {
+            return Flux.fromIterable(searchIndex.search(query));
+        }
         // If query is null or blank, return all routes
         if (!StringUtils.hasText(query)) {
-            return Mono.fromCallable(jpaRepository::findAll)
-                    .flatMapMany(Flux::fromIterable)
-                    .map(this::convertToRouteDefinitionPayload)
-                    .subscribeOn(Schedulers.boundedElastic());
+            return routeStore.findAll()
+                    .map(this::convertToRouteDefinitionPayload);
         }
         // If there is a query, perform a search
         else {
-            return Mono.fromCallable(() -> jpaRepository.findByIdContainingIgnoreCaseOrUriContainingIgnoreCase(query, query))
-                    .flatMapMany(Flux::fromIterable)
-                    .map(this::convertToRouteDefinitionPayload)
-                    .subscribeOn(Schedulers.boundedElastic());
+            return routeStore.search(query)
+                    .map(this::convertToRouteDefinitionPayload);
         }
     }
 
@@ -59,23 +108,13 @@ public class RouteAdminServiceImpl implements RouteAdminService {
 
         // 1. Save the complete payload to the database.
         RouteDefinitionEntity entity = convertToEntity(payload);
-        Mono<Void> saveToDbMono = Mono.fromRunnable(() -> jpaRepository.save(entity))
-                .subscribeOn(Schedulers.boundedElastic()).then();
+        Mono<Void> saveToDbMono = routeStore.save(entity);
 
         // 2. Based on the 'enabled' flag, either publish the route to Redis or delete it from Redis.
         Mono<Void> redisOperationMono;
         if (payload.isEnabled()) {
             log.info("Route [{}] is enabled. Publishing to Redis.", payload.getId());
-            RouteDefinition redisRouteDefinition = new RouteDefinition();
-            redisRouteDefinition.setId(payload.getId());
-            redisRouteDefinition.setUri(URI.create(payload.getUri()));
-            redisRouteDefinition.setOrder(payload.getOrder());
-            redisRouteDefinition.setPredicates(payload.getPredicates());
-            redisRouteDefinition.setFilters(payload.getFilters().stream()
-                    .filter(FilterInfo::isEnabled)
-                    .map(this::convertToFilterDefinition)
-                    .collect(Collectors.toList()));
-            redisOperationMono = redisRepository.save(Mono.just(redisRouteDefinition));
+            redisOperationMono = redisRepository.save(Mono.just(convertToRouteDefinition(payload)));
         } else {
             log.info("Route [{}] is disabled. Deleting from Redis.", payload.getId());
             redisOperationMono = redisRepository.delete(Mono.just(payload.getId()));
@@ -88,8 +127,7 @@ public class RouteAdminServiceImpl implements RouteAdminService {
     @Transactional
     public Mono<Void> delete(String routeId) {
         log.info("Deleting route from database and Redis: [{}]", routeId);
-        Mono<Void> deleteFromDbMono = Mono.fromRunnable(() -> jpaRepository.deleteById(routeId))
-                .subscribeOn(Schedulers.boundedElastic()).then();
+        Mono<Void> deleteFromDbMono = routeStore.deleteById(routeId);
         Mono<Void> deleteFromRedisMono = redisRepository.delete(Mono.just(routeId));
         return deleteFromDbMono.then(deleteFromRedisMono);
     }
@@ -97,21 +135,210 @@ public class RouteAdminServiceImpl implements RouteAdminService {
     @Override
     public Mono<RouteDefinitionPayload> getById(String routeId) {
         log.info("get route from database and Redis: [{}]", routeId);
-        return Mono.fromCallable(() -> jpaRepository.findById(routeId))
-                .subscribeOn(Schedulers.boundedElastic())
-                .flatMap(optionalEntity -> optionalEntity.map(this::convertToRouteDefinitionPayload)
-                        .map(Mono::just)
-                        .orElseGet(Mono::empty));
+        return routeStore.findById(routeId)
+                .map(this::convertToRouteDefinitionPayload);
+    }
+
+    @Override
+    public Mono<RoutePage<RouteSummaryPayload>> getRouteSummaries(String after, int size) {
+        return page(after, size, routeStore::findSummariesAfter, RouteSummaryPayload::id);
+    }
+
+    @Override
+    public Mono<RoutePage<RouteDefinitionPayload>> getRoutes(String after, int size) {
+        return page(after, size,
+                (cursor, limit) -> routeStore.findPageAfter(cursor, limit)
+                        .map(this::convertToRouteDefinitionPayload),
+                RouteDefinitionPayload::getId);
+    }
+
+    @Override
+    public Flux<RouteSummaryPayload> streamRouteSummaries() {
+        return stream(this::getRouteSummaries);
+    }
+
+    @Override
+    public Mono<Integer> importRoutes(Flux<RouteDefinitionPayload> payloads) {
+        return payloads.collectList().flatMap(batch -> {
+            if (batch.isEmpty()) {
+                return Mono.just(0);
+            }
+            // 写入任何一条之前先校验整批，有一条不合法就拒绝整批，避免只导入了一部分
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < batch.size(); i++) {
+                RouteDefinitionPayload payload = batch.get(i);
+                String error = validateImported(payload);
+                if (error == null && !ids.add(payload.getId())) {
+                    error = "duplicate id";
+                }
+                if (error != null) {
+                    return Mono.error(new IllegalArgumentException(
+                            "Invalid route at index " + i + (StringUtils.hasText(payload.getId()) ? " (id '" + payload.getId() + "')" : "") + ": " + error));
+                }
+            }
+            log.info("Importing a batch of {} routes.", batch.size());
+
+            // 1. 在一个事务中批量写入数据库
+            List<RouteDefinitionEntity> entities = batch.stream().map(this::convertToEntity).toList();
+            Mono<Integer> saveToDbMono = routeStore.upsertAll(entities);
+
+            // 2. 启用的路由一次性写入 Redis，禁用的路由一次性从 Redis 删除
+            List<RouteDefinition> enabledRoutes = batch.stream()
+                    .filter(RouteDefinitionPayload::isEnabled)
+                    .map(this::convertToRouteDefinition)
+                    .toList();
+            List<String> disabledRouteIds = batch.stream()
+                    .filter(payload -> !payload.isEnabled())
+                    .map(RouteDefinitionPayload::getId)
+                    .toList();
+
+            // 3. 整批只发布一条全量刷新通知，而不是每条路由一条
+            return saveToDbMono
+                    .flatMap(count -> redisRepository.saveAll(enabledRoutes, disabledRouteIds).thenReturn(count))
+                    .doOnNext(count -> changeNotifier.fullRefresh(true));
+        });
+    }
+
+    @Override
+    public Flux<RouteDefinitionPayload> exportRoutes() {
+        // 逐页读取，导出几万条路由时也不会把整张表一次性读入内存
+        return stream(this::getRoutes);
     }
 
     @Override
     public void refreshRoutes() {
         log.info("Manually triggering a global route refresh.");
-        eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+        // 先用数据库中的数据重建 Redis 路由 Hash (修复绕过 Hash 的写入造成的不一致)，
+        // 再广播一条全量刷新消息，集群中的每个节点都会重载整张路由表
+        redisRepository.getRouteRevision()
+                .flatMap(revision -> routeStore.findEnabled()
+                        .map(this::convertToRouteDefinitionPayload)
+                        .map(this::convertToRouteDefinition)
+                        .collectList()
+                        .flatMap(routeDefinitions -> redisRepository.rebuild(revision, routeDefinitions)))
+                .onErrorResume(error -> {
+                    log.error("Failed to rebuild Redis route hash from database.", error);
+                    return Mono.just(false);
+                })
+                .subscribe(rebuilt -> changeNotifier.fullRefresh(true));
+    }
+
+    @Override
+    public Map<String, Long> getRefreshStats() {
+        return refreshCoordinator.getStats();
     }
 
     // --- Helper Methods ---
 
+    /**
+     * 本节点或其他节点 (经由 Redis 频道) 的每一次路由变更都会到达这里，FULL 消息重建整个索引。
+     * 索引覆盖已禁用的路由，因此 DELETE 消息 (也用于禁用路由) 同样重新读取这一行，而不是直接从索引中删除
+     */
+    private Mono<Void> applyToSearchIndex(RouteChangeMessage message) {
+        String routeId = message.getRouteId();
+        if (message.getOperation() == RouteChangeMessage.Operation.FULL || routeId == null) {
+            return routeStore.findAll()
+                    .flatMap(entity -> Mono.justOrEmpty(toIndexedPayload(entity)))
+                    .collectList()
+                    .doOnNext(payloads -> {
+                        searchIndex.replaceAll(payloads);
+                        log.info("Built route search index over {} routes.", payloads.size());
+                    })
+                    .then()
+                    .onErrorResume(error -> {
+                        log.error("Failed to build route search index.", error);
+                        return Mono.empty();
+                    });
+        }
+        return routeStore.findById(routeId)
+                .map(this::toIndexedPayload)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(payload -> payload.ifPresentOrElse(searchIndex::put, () -> searchIndex.remove(routeId)))
+                .then()
+                .onErrorResume(error -> {
+                    log.error("Failed to update route search index for route {}.", routeId, error);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 校验一条导入的路由
+     * @return 不合法的原因，合法时返回 null
+     */
+    private static String validateImported(RouteDefinitionPayload payload) {
+        if (payload == null) {
+            return "route must not be null";
+        }
+        if (!StringUtils.hasText(payload.getId())) {
+            return "id must not be empty";
+        }
+        if (!StringUtils.hasText(payload.getUri())) {
+            return "uri must not be empty";
+        }
+        try {
+            if (!URI.create(payload.getUri()).isAbsolute()) {
+                return "uri must be absolute: " + payload.getUri();
+            }
+        } catch (IllegalArgumentException e) {
+            return "uri is not valid: " + payload.getUri();
+        }
+        if (payload.getPredicates() == null || payload.getPredicates().isEmpty()) {
+            return "at least one predicate is required";
+        }
+        if (payload.getPredicates().stream().anyMatch(predicate -> predicate == null || !StringUtils.hasText(predicate.getName()))) {
+            return "every predicate must have a name";
+        }
+        if (payload.getFilters() == null) {
+            return "filters must not be null";
+        }
+        if (payload.getFilters().stream().anyMatch(filter -> filter == null || !StringUtils.hasText(filter.getName()))) {
+            return "every filter must have a name";
+        }
+        return null;
+    }
+
+    /**
+     * 单条路由的 JSON 损坏时只把它排除在索引之外，不影响其余路由
+     */
+    private Optional<RouteDefinitionPayload> toIndexedPayload(RouteDefinitionEntity entity) {
+        try {
+            return Optional.of(convertToRouteDefinitionPayload(entity));
+        } catch (Exception e) {
+            log.warn("Skipping route {} in the search index, its definition could not be parsed.", entity.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    private <T> Mono<RoutePage<T>> page(String after, int size, BiFunction<String, Integer, Flux<T>> loader, Function<T, String> idOf) {
+        String cursor = after != null ? after : "";
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return loader.apply(cursor, pageSize)
+                .collectList()
+                .map(items -> new RoutePage<>(items, items.size() < pageSize ? null : idOf.apply(items.get(items.size() - 1))));
+    }
+
+    private static <T> Flux<T> stream(BiFunction<String, Integer, Mono<RoutePage<T>>> pageLoader) {
+        return pageLoader.apply(null, MAX_PAGE_SIZE)
+                .expand(page -> page.nextCursor() == null ? Mono.empty() : pageLoader.apply(page.nextCursor(), MAX_PAGE_SIZE))
+                .concatMapIterable(RoutePage::items);
+    }
+
+    /**
+     * 转换为发布到 Redis 的路由定义，只保留启用的过滤器
+     */
+    private RouteDefinition convertToRouteDefinition(RouteDefinitionPayload payload) {
+        RouteDefinition rd = new RouteDefinition();
+        rd.setId(payload.getId());
+        rd.setUri(URI.create(payload.getUri()));
+        rd.setOrder(payload.getOrder());
+        rd.setPredicates(payload.getPredicates());
+        rd.setFilters(payload.getFilters().stream()
+                .filter(FilterInfo::isEnabled)
+                .map(this::convertToFilterDefinition)
+                .collect(Collectors.toList()));
+        return rd;
+    }
+
     private FilterDefinition convertToFilterDefinition(FilterInfo filterInfo) {
         FilterDefinition fd = new FilterDefinition();
         fd.setName(filterInfo.getName());
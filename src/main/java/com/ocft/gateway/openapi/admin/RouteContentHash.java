@@ -0,0 +1,7 @@
+package com.ocft.gateway.openapi.admin;
+
+/**
+ * The id and content hash of a stored route, used to detect changed rows without reading the TEXT columns.
+ */
+public record RouteContentHash(String id, String contentHash) {
+}
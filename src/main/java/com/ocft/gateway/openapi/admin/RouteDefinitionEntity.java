@@ -3,6 +3,12 @@ package com.ocft.gateway.openapi.admin;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+
 @Entity
 @Table(name = "gateway_routes")
 @Data
@@ -26,4 +32,39 @@ public class RouteDefinitionEntity {
 
     @Column(nullable = false)
     private boolean enabled = true;
+
+    /**
+     * SHA-256 of the routing content, see {@link #computeContentHash}. Lets the gateway tell which rows changed
+     * by reading only (id, content_hash) pairs instead of every TEXT column.
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    private Instant updatedAt;
+
+    /**
+     * Recomputes {@link #contentHash} and stamps {@link #updatedAt}; called automatically on JPA writes
+     * and explicitly by the JDBC batch writer.
+     */
+    @PrePersist
+    @PreUpdate
+    public void refreshContentHash() {
+        this.contentHash = computeContentHash(uri, predicates, filters, routeOrder);
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * Hex SHA-256 of {@code uri \n predicates \n filters \n route_order}, identical to MySQL's
+     * {@code SHA2(CONCAT(uri, '\n', predicates, '\n', COALESCE(filters, ''), '\n', route_order), 256)}
+     * so existing rows can be backfilled in SQL.
+     */
+    public static String computeContentHash(String uri, String predicates, String filters, int routeOrder) {
+        String content = uri + '\n' + predicates + '\n' + (filters != null ? filters : "") + '\n' + routeOrder;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
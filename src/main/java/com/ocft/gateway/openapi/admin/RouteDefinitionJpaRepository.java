@@ -1,6 +1,9 @@
 package com.ocft.gateway.openapi.admin;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -8,6 +11,13 @@ public interface RouteDefinitionJpaRepository extends JpaRepository<RouteDefinit
 
     List<RouteDefinitionEntity> findByEnabled(boolean enabled);
 
+    /**
+     * Reads only the (id, content_hash) pairs of the enabled routes, so a reload can skip unchanged rows.
+     * @return one entry per enabled route
+     */
+    @Query("SELECT new com.ocft.gateway.openapi.admin.RouteContentHash(r.id, r.contentHash) FROM RouteDefinitionEntity r WHERE r.enabled = true")
+    List<RouteContentHash> findEnabledContentHashes();
+
     /**
      * Finds routes where the ID or URI contains the given query string, ignoring case.
      * @param id The string to search for in the route ID.
@@ -16,4 +26,19 @@ public interface RouteDefinitionJpaRepository extends JpaRepository<RouteDefinit
      */
     List<RouteDefinitionEntity> findByIdContainingIgnoreCaseOrUriContainingIgnoreCase(String id, String uri);
 
+    /**
+     * Keyset pagination: the routes whose id sorts after the cursor, served by the primary key index.
+     * @param after the id of the last route on the previous page ("" for the first page)
+     * @param pageable the page size; the page number is always 0
+     * @return up to {@code pageable.getPageSize()} routes ordered by id
+     */
+    List<RouteDefinitionEntity> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+
+    /**
+     * Same as {@link #findByIdGreaterThanOrderByIdAsc}, but selects only the columns needed by list views.
+     */
+    @Query("SELECT new com.ocft.gateway.openapi.admin.RouteSummaryPayload(r.id, r.uri, r.routeOrder, r.enabled) "
+            + "FROM RouteDefinitionEntity r WHERE r.id > :after ORDER BY r.id")
+    List<RouteSummaryPayload> findSummariesAfter(@Param("after") String after, Pageable pageable);
+
 }
@@ -0,0 +1,12 @@
+package com.ocft.gateway.openapi.admin;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated route listing, ordered by route id.
+ *
+ * @param items      the routes on this page
+ * @param nextCursor the id to pass as {@code after} to fetch the next page, or null if this is the last page
+ */
+public record RoutePage<T>(List<T> items, String nextCursor) {
+}
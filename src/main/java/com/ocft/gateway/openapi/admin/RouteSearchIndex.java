@@ -0,0 +1,168 @@
+package com.ocft.gateway.openapi.admin;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理后台路由搜索用的内存三元组 (trigram) 索引，覆盖路由 ID、URI、断言参数 (例如 Path 模式) 和过滤器名称。
+ * <p>
+ * 每条路由的可搜索文本转成小写后切成所有长度为 3 的子串，倒排到路由 ID 上。
+ * 查询时取查询串中倒排表最短的那个三元组作为候选集合，再逐个用 {@code contains} 校验，结果与子串匹配完全一致；
+ * 短于 3 个字符的查询直接扫描所有路由的文本。
+ * <p>
+ * 写操作 ({@link #put}、{@link #remove}、{@link #replaceAll}) 只能由一个线程调用，读操作可以并发进行。
+ */
+public final class RouteSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private volatile Data data = new Data();
+    private volatile boolean ready;
+
+    /**
+     * 是否已经完成过一次全量构建；构建之前调用方应回退到数据库查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return data.documents.size();
+    }
+
+    /**
+     * 用全量数据重建索引，构建完成后原子替换
+     */
+    public void replaceAll(Collection<RouteDefinitionPayload> payloads) {
+        Data rebuilt = new Data();
+        payloads.forEach(rebuilt::put);
+        this.data = rebuilt;
+        this.ready = true;
+    }
+
+    public void put(RouteDefinitionPayload payload) {
+        data.put(payload);
+    }
+
+    public void remove(String routeId) {
+        data.remove(routeId);
+    }
+
+    /**
+     * @param query 查询串，忽略大小写
+     * @return 可搜索文本包含该查询串的路由，按 ID 排序
+     */
+    public List<RouteDefinitionPayload> search(String query) {
+        Data current = this.data;
+        String needle = query.toLowerCase(Locale.ROOT);
+        Collection<Document> candidates = needle.length() < GRAM_LENGTH
+                ? current.documents.values()
+                : current.candidates(needle);
+        List<RouteDefinitionPayload> result = new ArrayList<>();
+        for (Document document : candidates) {
+            if (document.text().contains(needle)) {
+                result.add(document.payload());
+            }
+        }
+        result.sort(Comparator.comparing(RouteDefinitionPayload::getId));
+        return result;
+    }
+
+    static String searchableText(RouteDefinitionPayload payload) {
+        StringBuilder text = new StringBuilder();
+        text.append(payload.getId()).append('\n').append(payload.getUri());
+        if (payload.getPredicates() != null) {
+            for (PredicateDefinition predicate : payload.getPredicates()) {
+                predicate.getArgs().values().forEach(value -> text.append('\n').append(value));
+            }
+        }
+        if (payload.getFilters() != null) {
+            payload.getFilters().forEach(filter -> text.append('\n').append(filter.getName()));
+        }
+        return text.toString().toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private record Document(RouteDefinitionPayload payload, String text, Set<String> grams) {
+    }
+
+    private static final class Data {
+
+        private final Map<String, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+        void put(RouteDefinitionPayload payload) {
+            String text = searchableText(payload);
+            Document document = new Document(payload, text, grams(text));
+            Document previous = documents.put(payload.getId(), document);
+            if (previous != null) {
+                unlink(payload.getId(), previous, document.grams());
+            }
+            for (String gram : document.grams()) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(payload.getId());
+            }
+        }
+
+        void remove(String routeId) {
+            Document previous = documents.remove(routeId);
+            if (previous != null) {
+                unlink(routeId, previous, Set.of());
+            }
+        }
+
+        /**
+         * 从旧文档的倒排表中移除该路由，新文档仍然包含的三元组保持不动
+         */
+        private void unlink(String routeId, Document previous, Set<String> keep) {
+            for (String gram : previous.grams()) {
+                if (keep.contains(gram)) {
+                    continue;
+                }
+                Set<String> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(routeId);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram, ids);
+                    }
+                }
+            }
+        }
+
+        Collection<Document> candidates(String needle) {
+            Set<String> smallest = null;
+            for (String gram : grams(needle)) {
+                Set<String> ids = postings.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                if (smallest == null || ids.size() < smallest.size()) {
+                    smallest = ids;
+                }
+            }
+            List<Document> candidates = new ArrayList<>(smallest.size());
+            for (String id : smallest) {
+                Document document = documents.get(id);
+                if (document != null) {
+                    candidates.add(document);
+                }
+            }
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ocft.gateway.openapi.admin;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * gateway_routes 表的响应式访问接口，{@link com.ocft.gateway.openapi.config.DatabaseRouteDefinitionRepository}
+ * 和 {@link RouteAdminServiceImpl} 只通过它读写路由。
+ * <p>
+ * 具体实现由 {@code gateway.routes.store} 选择：
+ * <ul>
+ *     <li>{@code jpa} (默认)：{@link JpaRouteStore}，阻塞的 JPA 调用在弹性线程池上执行</li>
+ *     <li>{@code r2dbc}：{@code R2dbcRouteStore}，使用非阻塞的 R2DBC 驱动，不占用任何阻塞线程；只在使用 Maven profile {@code r2dbc} 构建时存在 (src/r2dbc)</li>
+ * </ul>
+ */
+public interface RouteStore {
+
+    Mono<RouteDefinitionEntity> findById(String id);
+
+    Flux<RouteDefinitionEntity> findAllById(Collection<String> ids);
+
+    Flux<RouteDefinitionEntity> findAll();
+
+    Flux<RouteDefinitionEntity> findEnabled();
+
+    /**
+     * ID 或 URI 包含查询字符串 (忽略大小写) 的路由
+     */
+    Flux<RouteDefinitionEntity> search(String query);
+
+    /**
+     * 只读取启用路由的 (id, content_hash)，用于增量加载
+     */
+    Flux<RouteContentHash> findEnabledContentHashes();
+
+    /**
+     * 键集分页：ID 排在游标之后的至多 {@code limit} 条路由，按 ID 升序
+     */
+    Flux<RouteDefinitionEntity> findPageAfter(String after, int limit);
+
+    /**
+     * 同 {@link #findPageAfter}，只读取列表视图需要的列
+     */
+    Flux<RouteSummaryPayload> findSummariesAfter(String after, int limit);
+
+    /**
+     * 插入或更新一条路由，内容哈希在写入前重新计算
+     */
+    Mono<Void> save(RouteDefinitionEntity entity);
+
+    Mono<Void> deleteById(String id);
+
+    /**
+     * 在一个事务中批量插入或更新路由
+     * @return 写入的行数
+     */
+    Mono<Integer> upsertAll(List<RouteDefinitionEntity> entities);
+}
@@ -0,0 +1,12 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Lightweight projection of a route for list views: the predicate and filter JSON columns are neither loaded nor parsed.
+ */
+public record RouteSummaryPayload(String id,
+                                  String uri,
+                                  @JsonProperty("order") int routeOrder,
+                                  boolean enabled) {
+}
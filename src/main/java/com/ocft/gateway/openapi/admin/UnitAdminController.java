@@ -0,0 +1,57 @@
+package com.ocft.gateway.openapi.admin;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 后台管理API，用于管理单元到 L2 网关地址的注册表
+ */
+@RestController
+@RequestMapping("/admin/units")
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class UnitAdminController {
+
+    private final UnitAdminService unitAdminService;
+
+    /**
+     * 获取所有单元映射
+     * @return A Flux of unit gateway payloads
+     */
+    @GetMapping
+    public Flux<UnitGatewayPayload> getAllUnits() {
+        return unitAdminService.getAllUnits();
+    }
+
+    /**
+     * 新建或更新一个单元映射
+     * @param unit 单元名称
+     * @param payload 单元映射负载
+     * @return 成功或失败
+     */
+    @PutMapping("/{unit}")
+    public Mono<ResponseEntity<Object>> saveUnit(@PathVariable String unit, @RequestBody UnitGatewayPayload payload) {
+        // 确保名称一致
+        payload.setUnit(unit);
+        return unitAdminService.save(payload)
+                .then(Mono.just(ResponseEntity.ok().build()))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())));
+    }
+
+    /**
+     * 删除一个单元映射
+     * @param unit 单元名称
+     * @return 成功或失败
+     */
+    @DeleteMapping("/{unit}")
+    public Mono<ResponseEntity<Void>> deleteUnit(@PathVariable String unit) {
+        return unitAdminService.delete(unit)
+                .then(Mono.just(ResponseEntity.ok().build()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.ocft.gateway.openapi.admin;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 单元注册表管理服务接口
+ */
+public interface UnitAdminService {
+
+    /**
+     * 从数据库获取所有单元到 L2 网关的映射 (包括已禁用的)
+     * @return A Flux of unit gateway payloads
+     */
+    Flux<UnitGatewayPayload> getAllUnits();
+
+    /**
+     * 保存单元映射（新建或更新）到数据库和Redis，并通知所有节点重新加载注册表
+     * @param payload 单元映射负载
+     * @return a Mono that completes when the save operation is finished
+     */
+    Mono<Void> save(UnitGatewayPayload payload);
+
+    /**
+     * 从数据库和Redis中删除单元映射，并通知所有节点重新加载注册表
+     * @param unit 单元名称
+     * @return a Mono that completes when the delete operation is finished
+     */
+    Mono<Void> delete(String unit);
+}
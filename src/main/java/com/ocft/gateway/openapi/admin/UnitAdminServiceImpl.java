@@ -0,0 +1,173 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ocft.gateway.openapi.unit.UnitGatewayEntity;
+import com.ocft.gateway.openapi.unit.UnitGatewayJpaRepository;
+import com.ocft.gateway.openapi.unit.UnitGatewayRegistry;
+import com.ocft.gateway.openapi.unit.UnitGatewaySpec;
+import com.ocft.gateway.openapi.unit.UnitPoolSettings;
+import com.ocft.gateway.openapi.unit.UnitTarget;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class UnitAdminServiceImpl implements UnitAdminService {
+
+    private final UnitGatewayJpaRepository jpaRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Sinks.Many<Sinks.One<Void>> syncRequests = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable syncSubscription;
+
+    @PostConstruct
+    public void startSync() {
+        syncSubscription = syncRequests.asFlux()
+                .concatMap(this::sync)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopSync() {
+        if (syncSubscription != null) {
+            syncSubscription.dispose();
+        }
+    }
+
+    @Override
+    public Flux<UnitGatewayPayload> getAllUnits() {
+        return Mono.fromCallable(jpaRepository::findAll)
+                .flatMapMany(Flux::fromIterable)
+                .map(this::convertToPayload)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Void> save(UnitGatewayPayload payload) {
+        if (!StringUtils.hasText(payload.getUnit())) {
+            return Mono.error(new IllegalArgumentException("Unit name must not be empty"));
+        }
+        try {
+            UnitTarget.parseGatewayUris(payload.getGatewayUri());
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IllegalArgumentException("Invalid L2 gateway URI: " + payload.getGatewayUri() + " (" + e.getMessage() + ")"));
+        }
+        if (payload.getPool() != null) {
+            try {
+                payload.getPool().validate();
+            } catch (IllegalArgumentException e) {
+                return Mono.error(new IllegalArgumentException("Invalid pool settings: " + e.getMessage()));
+            }
+        }
+        log.info("Saving unit [{}] -> [{}], enabled status: {}", payload.getUnit(), payload.getGatewayUri(), payload.isEnabled());
+        return Mono.fromCallable(() -> jpaRepository.save(convertToEntity(payload)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(syncRedisAndNotify());
+    }
+
+    @Override
+    public Mono<Void> delete(String unit) {
+        log.info("Deleting unit from database and Redis: [{}]", unit);
+        return Mono.fromRunnable(() -> jpaRepository.deleteById(unit))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(syncRedisAndNotify());
+    }
+
+    /**
+     * 单元注册表很小，每次变更后都用数据库中启用的映射整体重写 Redis Hash，保证 Redis 中的副本总是完整的，
+     * 然后通知所有节点重新加载。
+     * <p>
+     * 新内容先写入一个临时 key，再用 RENAME 原子地替换，读取方不会看到空的或只写了一半的 Hash。
+     * 同步请求进入队列后逐个执行，先开始的同步一定先完成并先发布通知，较旧的快照不会覆盖较新的快照。
+     */
+    private Mono<Void> syncRedisAndNotify() {
+        Sinks.One<Void> done = Sinks.one();
+        // 请求可能同时来自多个线程，并发的 emit 在这里自旋重试
+        syncRequests.emitNext(done, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return done.asMono();
+    }
+
+    private Mono<Void> sync(Sinks.One<Void> done) {
+        return Mono.fromCallable(() -> jpaRepository.findByEnabled(true).stream()
+                        .collect(Collectors.toMap(UnitGatewayEntity::getUnit, this::toRedisValue)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(units -> units.isEmpty() ? redisTemplate.delete(UnitGatewayRegistry.UNITS_KEY).then() : replaceUnits(units))
+                .then(redisTemplate.convertAndSend(UnitGatewayRegistry.REFRESH_UNITS_CHANNEL, "refresh"))
+                .then()
+                .doOnSuccess(ignored -> done.tryEmitEmpty())
+                .onErrorResume(error -> {
+                    done.tryEmitError(error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> replaceUnits(Map<String, String> units) {
+        // 临时 key 带上随机后缀，多个管理节点同时同步时不会写进同一个临时 Hash
+        String tmpKey = UnitGatewayRegistry.UNITS_KEY + ":tmp:" + UUID.randomUUID();
+        return redisTemplate.<String, String>opsForHash().putAll(tmpKey, units)
+                .then(redisTemplate.rename(tmpKey, UnitGatewayRegistry.UNITS_KEY))
+                .then()
+                .onErrorResume(error -> redisTemplate.delete(tmpKey)
+                        .onErrorResume(ignored -> Mono.empty())
+                        .then(Mono.error(error)));
+    }
+
+    private String toRedisValue(UnitGatewayEntity entity) {
+        try {
+            return new UnitGatewaySpec(entity.getGatewayUri(), readPool(entity)).toRedisValue(objectMapper);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize unit gateway " + entity.getUnit(), e);
+        }
+    }
+
+    private UnitPoolSettings readPool(UnitGatewayEntity entity) {
+        if (!StringUtils.hasText(entity.getPoolSettings())) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(entity.getPoolSettings(), UnitPoolSettings.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring invalid pool settings of unit [{}]: {}", entity.getUnit(), entity.getPoolSettings());
+            return null;
+        }
+    }
+
+    private UnitGatewayEntity convertToEntity(UnitGatewayPayload payload) throws JsonProcessingException {
+        var entity = new UnitGatewayEntity();
+        entity.setUnit(payload.getUnit());
+        entity.setGatewayUri(payload.getGatewayUri());
+        entity.setEnabled(payload.isEnabled());
+        UnitPoolSettings pool = payload.getPool();
+        entity.setPoolSettings(pool == null || pool.isEmpty() ? null : objectMapper.writeValueAsString(pool));
+        return entity;
+    }
+
+    private UnitGatewayPayload convertToPayload(UnitGatewayEntity entity) {
+        var payload = new UnitGatewayPayload();
+        payload.setUnit(entity.getUnit());
+        payload.setGatewayUri(entity.getGatewayUri());
+        payload.setEnabled(entity.isEnabled());
+        payload.setPool(readPool(entity));
+        return payload;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.unit.UnitPoolSettings;
+import lombok.Data;
+
+/**
+ * DTO for managing the unit to L2 gateway registry in the admin API.
+ */
+@Data
+public class UnitGatewayPayload {
+
+    private String unit;
+
+    private String gatewayUri;
+
+    private boolean enabled = true;
+
+    /**
+     * 可选的连接池参数，未设置的字段使用 gateway.unit-pool.* 的默认值
+     */
+    private UnitPoolSettings pool;
+}
@@ -0,0 +1,33 @@
+package com.ocft.gateway.openapi.admin;
+
+import com.ocft.gateway.openapi.unit.UnitConnectionPools;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 后台管理API，用于查看本节点每个单元 / L2 网关实例的上游连接池
+ */
+@RestController
+@RequestMapping("/admin/units/pools")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.admin", name = "enabled", havingValue = "true")
+public class UnitPoolAdminController {
+
+    private final UnitConnectionPools connectionPools;
+
+    /**
+     * 获取每个连接池的参数、活跃/空闲连接数、排队等待连接的请求数，以及获取连接的次数、失败次数和耗时 (p50/p99/p999/max，毫秒)
+     * @return 按单元和实例地址排序的连接池状态
+     */
+    @GetMapping
+    public Mono<List<Map<String, Object>>> getPools() {
+        return Mono.just(connectionPools.snapshot());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ocft.gateway.openapi.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 解析 Cache-Control 中与共享缓存相关的指令
+ * @param noStore  no-store
+ * @param noCache  no-cache (请求上也包括 Pragma: no-cache)
+ * @param isPrivate private
+ * @param maxAge   s-maxage，没有时取 max-age，都没有时为 -1 (秒)
+ */
+public record CacheDirectives(boolean noStore, boolean noCache, boolean isPrivate, long maxAge) {
+
+    private static final CacheDirectives NONE = new CacheDirectives(false, false, false, -1);
+
+    public static CacheDirectives of(HttpHeaders headers) {
+        List<String> values = headers.get(HttpHeaders.CACHE_CONTROL);
+        String pragma = headers.getFirst(HttpHeaders.PRAGMA);
+        boolean pragmaNoCache = pragma != null && pragma.toLowerCase(Locale.ROOT).contains("no-cache");
+        if (values == null || values.isEmpty()) {
+            return pragmaNoCache ? new CacheDirectives(false, true, false, -1) : NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = pragmaNoCache;
+        boolean isPrivate = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String d = directive.trim().toLowerCase(Locale.ROOT);
+                if (d.equals("no-store")) {
+                    noStore = true;
+                } else if (d.startsWith("no-cache")) {
+                    noCache = true;
+                } else if (d.startsWith("private")) {
+                    isPrivate = true;
+                } else if (d.startsWith("max-age=")) {
+                    maxAge = seconds(d.substring("max-age=".length()));
+                } else if (d.startsWith("s-maxage=")) {
+                    sharedMaxAge = seconds(d.substring("s-maxage=".length()));
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, isPrivate, sharedMaxAge >= 0 ? sharedMaxAge : maxAge);
+    }
+
+    /**
+     * 响应可以在共享缓存中保存多久
+     * @param defaultTtl 响应没有给出 max-age 时使用的有效期
+     * @return 不可缓存时返回 null
+     */
+    public Duration sharedTtl(Duration defaultTtl) {
+        if (noStore || noCache || isPrivate) {
+            return null;
+        }
+        Duration ttl = maxAge >= 0 ? Duration.ofSeconds(maxAge) : defaultTtl;
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    private static long seconds(String value) {
+        try {
+            return Long.parseLong(value.replace("\"", "").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
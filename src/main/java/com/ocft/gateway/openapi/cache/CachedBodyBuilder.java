@@ -0,0 +1,60 @@
+package com.ocft.gateway.openapi.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 在响应体流过时复制一份用于写入缓存，超过上限后放弃复制，只让数据块照常流过。
+ * 数据块按绝对位置复制，不改变 DataBuffer 的读位置
+ */
+public final class CachedBodyBuilder {
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final int maxBytes;
+    private byte[] bytes;
+    private int size;
+    private boolean overflow;
+
+    /**
+     * @param maxBytes      最多复制的字节数
+     * @param contentLength 响应头中的长度，未知时为 -1
+     */
+    public CachedBodyBuilder(int maxBytes, long contentLength) {
+        this.maxBytes = maxBytes;
+        this.bytes = new byte[(int) Math.min(maxBytes, contentLength >= 0 ? contentLength : INITIAL_CAPACITY)];
+    }
+
+    public void append(DataBuffer dataBuffer) {
+        if (overflow) {
+            return;
+        }
+        int readable = dataBuffer.readableByteCount();
+        if (size + readable > maxBytes) {
+            overflow = true;
+            bytes = null;
+            return;
+        }
+        if (size + readable > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(maxBytes, Math.max(size + readable, bytes.length * 2)));
+        }
+        dataBuffer.toByteBuffer(dataBuffer.readPosition(), ByteBuffer.wrap(bytes), size, readable);
+        size += readable;
+    }
+
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * 把复制到的响应体放入一块大小正好的缓冲区
+     * @param offHeap 是否使用堆外内存
+     */
+    public ByteBuffer build(boolean offHeap) {
+        ByteBuffer body = offHeap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        body.put(bytes, 0, size).flip();
+        return body.asReadOnlyBuffer();
+    }
+}
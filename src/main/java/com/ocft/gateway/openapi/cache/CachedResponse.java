@@ -0,0 +1,35 @@
+package com.ocft.gateway.openapi.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 缓存中的一个响应。响应体是只读的，每次命中都通过 {@link ByteBuffer#duplicate()} 共享同一块内存，不做复制
+ * @param status       响应状态
+ * @param headers      去掉逐跳头之后的响应头 (只读)
+ * @param body         响应体，堆外或堆内
+ * @param storedAtMillis 写入缓存的时间，用于计算 Age
+ * @param ttlNanos     有效期
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, ByteBuffer body, long storedAtMillis, long ttlNanos) {
+
+    public String etag() {
+        return headers.getETag();
+    }
+
+    /**
+     * 用于缓存容量计算的大致字节数
+     */
+    int weight() {
+        int weight = body.capacity();
+        for (var header : headers.entrySet()) {
+            weight += header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += value.length();
+            }
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,177 @@
+package com.ocft.gateway.openapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关的响应缓存。
+ * <p>
+ * 条目保存在一个按字节数限制容量的 Caffeine 缓存中 (W-TinyLFU 淘汰)，响应体默认放在堆外内存，
+ * 每个条目按自己的有效期过期。带 {@code Vary} 的响应按请求中对应请求头的值分别缓存：
+ * 先用主键找到该资源的 Vary 头列表，再拼出变体键查找条目。
+ */
+@Slf4j
+@Component
+public class ResponseCacheStore {
+
+    /**
+     * 不保存的逐跳头和与具体客户端相关的头
+     */
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade",
+            "proxy-authenticate", "proxy-authorization", "set-cookie", "content-length", "age");
+
+    private final boolean offHeap;
+    private final Cache<String, CachedResponse> entries;
+    private final Cache<String, List<String>> varyByKey;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public ResponseCacheStore(@Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+                              @Value("${gateway.response-cache.off-heap:true}") boolean offHeap) {
+        this.offHeap = offHeap;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() + response.weight())
+                .expireAfter(new ResponseExpiry())
+                .build();
+        this.varyByKey = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    /**
+     * 查找与请求匹配的缓存条目
+     * @param key 资源的主键 (路由 + 请求 URI + 租户)
+     * @param requestHeaders 请求头，用于匹配 Vary
+     * @return 未命中时返回 null
+     */
+    public CachedResponse lookup(String key, HttpHeaders requestHeaders) {
+        List<String> vary = varyByKey.getIfPresent(key);
+        CachedResponse response = entries.getIfPresent(vary == null ? key : variantKey(key, vary, requestHeaders));
+        (response != null ? hits : misses).increment();
+        return response;
+    }
+
+    /**
+     * 写入一个响应
+     * @param vary 响应的 Vary 头 (小写)，不能包含 *
+     */
+    public void store(String key, HttpHeaders requestHeaders, List<String> vary, CachedResponse response) {
+        if (vary.isEmpty()) {
+            varyByKey.invalidate(key);
+            entries.put(key, response);
+        } else {
+            varyByKey.put(key, vary);
+            entries.put(variantKey(key, vary, requestHeaders), response);
+        }
+        stores.increment();
+    }
+
+    /**
+     * 复制可以发给其他客户端的响应头，去掉逐跳头、Set-Cookie 和长度相关的头
+     */
+    public static HttpHeaders storableHeaders(HttpHeaders responseHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        responseHeaders.forEach((name, values) -> {
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public void recordUncacheable() {
+        uncacheable.increment();
+    }
+
+    public void recordBypassed() {
+        bypassed.increment();
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+        varyByKey.invalidateAll();
+        log.info("Cleared the response cache.");
+    }
+
+    /**
+     * 本节点的缓存统计：命中率、各类计数以及缓存占用的字节数
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("notModified", notModified.sum());
+        stats.put("stores", stores.sum());
+        stats.put("uncacheable", uncacheable.sum());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("entries", entries.estimatedSize());
+        stats.put("weightedBytes", entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        stats.put("maxBytes", entries.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(0L));
+        stats.put("offHeap", offHeap);
+        return stats;
+    }
+
+    private static String variantKey(String key, List<String> vary, HttpHeaders requestHeaders) {
+        StringBuilder variant = new StringBuilder(key);
+        for (String name : vary) {
+            variant.append('\n').append(name).append(':');
+            List<String> values = requestHeaders.get(name);
+            if (values != null) {
+                variant.append(String.join(",", values));
+            }
+        }
+        return variant.toString();
+    }
+
+    private static final class ResponseExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
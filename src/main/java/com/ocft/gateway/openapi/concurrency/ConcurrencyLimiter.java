@@ -0,0 +1,68 @@
+package com.ocft.gateway.openapi.concurrency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个单元或一条路由的并发限制：当前并发数超过 {@link GradientLimit} 给出的上限时立即拒绝，不排队
+ */
+public final class ConcurrencyLimiter {
+
+    private final GradientLimit limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    ConcurrencyLimiter(GradientLimit limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return 是否获得许可；获得许可后必须调用 {@link #release} 或 {@link #releaseWithoutSample()}
+     */
+    public boolean tryAcquire() {
+        int current = inflight.incrementAndGet();
+        if (current > limit.getLimit()) {
+            inflight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        limit.recordInflight(current);
+        return true;
+    }
+
+    /**
+     * 请求结束，把它的 RTT 计入上限的计算
+     * @param startNanos  获得许可的时间
+     * @param overloaded  请求是否以过载信号 (错误、502/503/504) 结束
+     */
+    public void release(long startNanos, boolean overloaded) {
+        inflight.decrementAndGet();
+        if (overloaded) {
+            dropped.increment();
+        }
+        limit.onSample(System.nanoTime() - startNanos, overloaded);
+    }
+
+    /**
+     * 请求被客户端取消等无法得到有效 RTT 的情况
+     */
+    public void releaseWithoutSample() {
+        inflight.decrementAndGet();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("limit", limit.getLimit());
+        snapshot.put("inflight", inflight.get());
+        snapshot.put("accepted", accepted.sum());
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("overloaded", dropped.sum());
+        snapshot.put("history", limit.history());
+        return snapshot;
+    }
+}
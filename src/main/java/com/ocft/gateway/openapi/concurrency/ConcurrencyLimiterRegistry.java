@@ -0,0 +1,138 @@
+package com.ocft.gateway.openapi.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 L2 单元和按路由的自适应并发限制。
+ * <p>
+ * 每个单元 / 路由有一个独立的 {@link ConcurrencyLimiter}，上限由 {@link GradientLimit} 根据观测到的 RTT 调整：
+ * 某个单元变慢时，转发给它的并发请求数随之收缩，超出上限的请求立即以 503 和 {@code Retry-After} 拒绝，
+ * 而不是继续堆积在一个已经过载的单元上。
+ * <p>
+ * RTT 从获得许可开始计算，到后续过滤器链完成为止。限制在路由过滤器中执行，排在 NettyWriteResponseFilter 之后，
+ * 过滤器链在收到上游的响应头时就完成了，因此样本是到收到响应头为止的时间 (time-to-headers)，不包括传输响应体的时间：
+ * 它反映的是下游处理请求的快慢，不受客户端读取速度的影响。许可同样在这时释放。客户端取消的请求不计入样本。
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimiterRegistry {
+
+    private final boolean unitsEnabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final String retryAfter;
+
+    private final Map<String, ConcurrencyLimiter> units = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrencyLimiter> routes = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiterRegistry(@Value("${gateway.concurrency.unit.enabled:true}") boolean unitsEnabled,
+                                      @Value("${gateway.concurrency.initial-limit:100}") int initialLimit,
+                                      @Value("${gateway.concurrency.min-limit:10}") int minLimit,
+                                      @Value("${gateway.concurrency.max-limit:2000}") int maxLimit,
+                                      @Value("${gateway.concurrency.window:500ms}") Duration window,
+                                      @Value("${gateway.concurrency.min-window-samples:10}") int minWindowSamples,
+                                      @Value("${gateway.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.unitsEnabled = unitsEnabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = window.toNanos();
+        this.minWindowSamples = minWindowSamples;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    /**
+     * 在单元的并发限制下执行后续过滤器链；未开启单元限制时直接执行
+     */
+    public Mono<Void> filterUnit(String unit, ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!unitsEnabled) {
+            return chain.filter(exchange);
+        }
+        return filter(units.computeIfAbsent(unit, this::newLimiter), exchange, chain);
+    }
+
+    /**
+     * 在路由的并发限制下执行后续过滤器链
+     */
+    public Mono<Void> filterRoute(String routeId, ServerWebExchange exchange, GatewayFilterChain chain) {
+        return filter(routes.computeIfAbsent(routeId, this::newLimiter), exchange, chain);
+    }
+
+    private Mono<Void> filter(ConcurrencyLimiter limiter, ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!limiter.tryAcquire()) {
+            return reject(exchange);
+        }
+        long startNanos = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limiter.releaseWithoutSample();
+                    } else {
+                        limiter.release(startNanos, signal == SignalType.ON_ERROR || isOverloaded(exchange.getResponse().getStatusCode()));
+                    }
+                });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return response.setComplete();
+    }
+
+    /**
+     * 502/503/504 说明下游已经过载或不可达
+     */
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    private ConcurrencyLimiter newLimiter(String name) {
+        log.info("Created adaptive concurrency limiter for '{}' with initial limit {}.", name, initialLimit);
+        return new ConcurrencyLimiter(new GradientLimit(initialLimit, minLimit, maxLimit, windowNanos, minWindowSamples));
+    }
+
+    /**
+     * 本节点所有限制器的当前状态和上限调整历史
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("units", snapshot(units));
+        snapshot.put("routes", snapshot(routes));
+        return snapshot;
+    }
+
+    private static Map<String, Object> snapshot(Map<String, ConcurrencyLimiter> limiters) {
+        Map<String, Object> snapshot = new TreeMap<>();
+        limiters.forEach((name, limiter) -> snapshot.put(name, limiter.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * 丢弃所有限制器，之后的请求从初始上限重新开始
+     */
+    public void reset() {
+        units.clear();
+        routes.clear();
+        log.info("Reset all adaptive concurrency limiters.");
+    }
+}
@@ -0,0 +1,166 @@
+package com.ocft.gateway.openapi.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 由观测到的 RTT 驱动的自适应并发上限 (gradient 算法)。
+ * <p>
+ * 请求完成时只把 RTT 累加到当前窗口；窗口结束 (经过 {@code window} 且至少有 {@code minWindowSamples} 个样本) 后，
+ * 由一个线程用窗口内的平均 RTT (短期 RTT) 与长期 RTT 的指数移动平均比较，计算新的上限：
+ * <pre>
+ * gradient = clamp(1.5 * longRtt / shortRtt, 0.5, 1.0)
+ * newLimit = limit * gradient + sqrt(limit)    (再按 0.2 的系数平滑)
+ * </pre>
+ * 短期 RTT 不超过长期 RTT 的 1.5 倍时 gradient 为 1，上限缓慢增长；下游变慢时 gradient 小于 1，上限按比例收缩。
+ * 窗口内出现过载信号 (错误、502/503/504) 时上限直接乘以 0.9；窗口内的并发峰值不到上限的一半时不调整，
+ * 避免在流量不足时把上限推到无意义的高度。每次调整都会记入最近 {@value #HISTORY_SIZE} 次的历史中。
+ */
+public final class GradientLimit {
+
+    static final int HISTORY_SIZE = 120;
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    /**
+     * 长期 RTT 的移动平均覆盖的窗口数
+     */
+    private static final double LONG_RTT_WINDOWS = 20;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowDrops = new LongAdder();
+    private final AtomicInteger windowPeakInflight = new AtomicInteger();
+    private volatile long windowStartNanos = System.nanoTime();
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private final Sample[] history = new Sample[HISTORY_SIZE];
+    private long updates;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, long windowNanos, int minWindowSamples) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 记录一次获得许可时的并发数，用于判断上限是否被用满
+     */
+    void recordInflight(int inflight) {
+        if (inflight > windowPeakInflight.get()) {
+            windowPeakInflight.accumulateAndGet(inflight, Math::max);
+        }
+    }
+
+    /**
+     * 记录一个请求的 RTT
+     * @param dropped 请求是否以过载信号结束
+     */
+    void onSample(long rttNanos, boolean dropped) {
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+        if (dropped) {
+            windowDrops.increment();
+        }
+        long now = System.nanoTime();
+        if (now - windowStartNanos < windowNanos || windowSamples.sum() < minWindowSamples) {
+            return;
+        }
+        // 只有一个线程负责结束窗口，其余线程不等待
+        if (!updating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (now - windowStartNanos < windowNanos) {
+                return;
+            }
+            long samples = windowSamples.sumThenReset();
+            long rttSum = windowRttSum.sumThenReset();
+            boolean windowDropped = windowDrops.sumThenReset() > 0;
+            int peakInflight = windowPeakInflight.getAndSet(0);
+            windowStartNanos = now;
+            if (samples > 0) {
+                update((double) rttSum / samples, peakInflight, windowDropped);
+            }
+        } finally {
+            updating.set(false);
+        }
+    }
+
+    private void update(double shortRttNanos, int peakInflight, boolean dropped) {
+        longRttNanos = longRttNanos == 0 ? shortRttNanos : longRttNanos + (shortRttNanos - longRttNanos) / LONG_RTT_WINDOWS;
+        // 负载下降后长期 RTT 会明显高于短期 RTT，让它更快地回落
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * BACKOFF;
+        } else if (peakInflight < estimatedLimit / 2) {
+            newLimit = estimatedLimit;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+
+        Sample sample = new Sample(System.currentTimeMillis(), limit, toMillis(shortRttNanos), toMillis(longRttNanos), peakInflight, dropped);
+        synchronized (history) {
+            history[(int) (updates++ % HISTORY_SIZE)] = sample;
+        }
+    }
+
+    /**
+     * 最近的调整历史，按时间从旧到新排列
+     */
+    public List<Sample> history() {
+        synchronized (history) {
+            int size = (int) Math.min(updates, HISTORY_SIZE);
+            List<Sample> samples = new ArrayList<>(size);
+            for (long i = updates - size; i < updates; i++) {
+                samples.add(history[(int) (i % HISTORY_SIZE)]);
+            }
+            return samples;
+        }
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 一次上限调整
+     * @param timestamp    调整时间 (epoch 毫秒)
+     * @param limit        调整后的上限
+     * @param rttMs        窗口内的平均 RTT
+     * @param longRttMs    长期 RTT
+     * @param peakInflight 窗口内的并发峰值
+     * @param dropped      窗口内是否出现过载信号
+     */
+    public record Sample(long timestamp, int limit, double rttMs, double longRttMs, int peakInflight, boolean dropped) {
+    }
+}
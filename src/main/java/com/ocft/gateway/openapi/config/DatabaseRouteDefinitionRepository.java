@@ -3,41 +3,147 @@ package com.ocft.gateway.openapi.config;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ocft.gateway.openapi.admin.FilterInfo;
+import com.ocft.gateway.openapi.admin.RouteContentHash;
 import com.ocft.gateway.openapi.admin.RouteDefinitionEntity;
-import com.ocft.gateway.openapi.admin.RouteDefinitionJpaRepository;
+import com.ocft.gateway.openapi.admin.RouteStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.cloud.gateway.filter.FilterDefinition;
 import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinitionRepository;
-import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
+/**
+ * 网关数据面使用的路由仓库。
+ * <p>
+ * 启用的路由保存在一个不可变的 {@link RouteSnapshot} 中，{@link #getRouteDefinitions()} 直接返回当前快照，不做任何 I/O。
+ * 收到 {@link RouteChangeMessage} 时只修补对应的那一条路由；只有首次加载、{@link RouteChangeMessage.Operation#FULL} 消息、
+ * 或者发现 Redis 中的全局版本号比快照更新 (说明有变更消息丢失) 时，才会全量重载。
+ * <p>
+ * 读取是分层的：优先读取 {@link RedisRouteDefinitionRepository} 维护的路由 Hash，只有 Hash 未命中或版本不一致时才访问 MySQL，
+ * 因此节点启动和刷新都不再依赖数据库。每次快照变化后还会写入本地的 {@link RouteSnapshotFile}，
+ * 节点重启时先用它提供路由，Redis 和 MySQL 都不可用时也能启动。
+ */
 @Repository
 @Slf4j
 @RequiredArgsConstructor
 public class DatabaseRouteDefinitionRepository implements RouteDefinitionRepository {
     private static final String ROUTES_KEY = "gateway:routes";
     public static final String REFRESH_ROUTES_CHANNEL = "gateway:routes:refresh";
-    private final RouteDefinitionJpaRepository jpaRepository;
+    private final RouteStore routeStore;
     private final ObjectMapper objectMapper;
-    private final ReactiveStringRedisTemplate redisTemplate;
-    private final ApplicationEventPublisher eventPublisher;
+    private final RedisRouteDefinitionRepository redisRepository;
+    private final RouteChangeNotifier changeNotifier;
+    private final RouteRefreshCoordinator refreshCoordinator;
+    private final RouteSnapshotFile snapshotFile;
 
     @Value("${gateway.routes.db.enabled:true}")
     private boolean dbRoutesEnabled;
 
+    @Value("${gateway.routes.snapshot.check-interval:30s}")
+    private Duration revisionCheckInterval;
+
+    /**
+     * 当前生效的路由表快照。读路径只读取这个引用，不做任何 I/O
+     */
+    private final AtomicReference<RouteSnapshot> snapshot = new AtomicReference<>(RouteSnapshot.NOT_LOADED);
+
+    /**
+     * 首次加载只执行一次，并发的调用方共享同一个结果；加载失败时不缓存错误，下一次调用会重新尝试
+     */
+    private final Mono<RouteSnapshot> initialLoad = Mono.defer(this::reload)
+            .cache(loaded -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+
+    /**
+     * 已请求但尚未执行的全量重载次数，用于合并并发的重载请求
+     */
+    private final AtomicInteger reloadWip = new AtomicInteger();
+
+    private Disposable revisionCheck;
+
+    /**
+     * 路由变更消息先进入队列，再用 concatMap 逐条修补快照。
+     * 修补是异步的，如果并发执行，后一条消息做缺口检查时前一条可能还没有写入快照，连续的变更会被误判为丢失消息而触发全量重载；
+     * 乱序完成的修补还会把先到的变更当作已包含而丢弃
+     */
+    private final Sinks.Many<RouteChangeMessage> routeChanges = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable routeChangeSubscription;
+
+    /**
+     * 从本地文件读取的快照。它的版本号可能与 Redis 中的版本号不可比 (例如 Redis 数据被清空过)，
+     * 因此在它被替换之前，第一次成功的全量重载总是覆盖它
+     */
+    private volatile RouteSnapshot provisional;
+
+    /**
+     * 上一次从数据库加载并解析的路由及其内容哈希，用于增量加载
+     */
+    private volatile Map<String, ParsedRoute> parsedRoutes = Map.of();
+
+    /**
+     * 先安装本地快照文件中的路由，使节点启动后立即可以提供服务，再在后台与 Redis / 数据库对齐。
+     * 之后定期比较 Redis 中的全局版本号，用于兜底 Pub/Sub 丢失消息的情况 (例如 Redis 重连期间)
+     */
+    @PostConstruct
+    public void startRevisionCheck() {
+        if (!dbRoutesEnabled) {
+            return;
+        }
+        routeChangeSubscription = routeChanges.asFlux()
+                .concatMap(this::applyChange)
+                .subscribe();
+        snapshotFile.read().ifPresent(local -> {
+            if (snapshot.compareAndSet(RouteSnapshot.NOT_LOADED, local)) {
+                provisional = local;
+                log.info("Serving {} routes from the local snapshot file (revision {}) until the store is reconciled.", local.size(), local.getRevision());
+                requestReload();
+            }
+        });
+        revisionCheck = Flux.interval(revisionCheckInterval, revisionCheckInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> currentRevision())
+                .filter(revision -> snapshot.get().isLoaded() && revision > snapshot.get().getRevision())
+                .subscribe(revision -> {
+                    log.info("Route revision {} is newer than snapshot revision {}, reloading.", revision, snapshot.get().getRevision());
+                    requestReload();
+                });
+    }
+
+    @PreDestroy
+    public void stopRevisionCheck() {
+        if (revisionCheck != null) {
+            revisionCheck.dispose();
+        }
+        if (routeChangeSubscription != null) {
+            routeChangeSubscription.dispose();
+        }
+    }
+
     @Override
     public Flux<RouteDefinition> getRouteDefinitions() {
         if (!dbRoutesEnabled) {
@@ -45,74 +151,267 @@ public class DatabaseRouteDefinitionRepository implements RouteDefinitionReposit
             return Flux.empty();
         }
 
+        RouteSnapshot current = snapshot.get();
+        if (current.isLoaded()) {
+            return Flux.fromIterable(current.getDefinitions());
+        }
+        return initialLoad.flatMapIterable(RouteSnapshot::getDefinitions);
+    }
+
+    /**
+     * 处理本节点或其他节点发布的路由变更：只负责放入修补队列，见 {@link #applyChange}
+     */
+    @EventListener
+    public void onRouteChange(RouteChangeMessage message) {
+        if (!dbRoutesEnabled) {
+            return;
+        }
+        // 事件可能同时来自多个线程，并发的 emit 在这里自旋重试
+        routeChanges.emitNext(message, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * 只修补受影响的那一条路由。前一条消息的修补完成后才会执行，因此这里看到的快照版本已经包含了之前所有的修补
+     */
+    private Mono<Void> applyChange(RouteChangeMessage message) {
+        RouteSnapshot current = snapshot.get();
+        long version = message.getVersion();
+        if (version != RouteChangeMessage.UNKNOWN_VERSION && version <= current.getRevision()) {
+            // 快照已经包含了这次变更 (例如重复投递或乱序到达的旧消息)
+            log.debug("Ignoring route change already contained in snapshot revision {}: {}", current.getRevision(), message);
+            return Mono.empty();
+        }
+        boolean missedChanges = version != RouteChangeMessage.UNKNOWN_VERSION && version > current.getRevision() + 1;
+        if (!current.isLoaded() || missedChanges
+                || message.getOperation() == RouteChangeMessage.Operation.FULL || message.getRouteId() == null) {
+            // 尚未完成首次加载、中间有版本缺失，或者收到全量刷新请求时，才重载整张表
+            requestReload();
+            return Mono.empty();
+        }
+        return patch(message)
+                .doOnNext(patched -> {
+                    log.info("Applied route change {}, snapshot revision is now {}.", message, patched.getRevision());
+                    snapshotFile.save(patched);
+                    refreshCoordinator.requestRefresh();
+                })
+                .onErrorResume(error -> {
+                    log.error("Failed to apply route change {}.", message, error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<RouteSnapshot> patch(RouteChangeMessage message) {
+        String routeId = message.getRouteId();
+        long version = message.getVersion();
+        if (message.getOperation() == RouteChangeMessage.Operation.DELETE) {
+            return Mono.fromSupplier(() -> snapshot.updateAndGet(s -> isContained(s, version) ? s : s.withoutRoute(routeId, version)));
+        }
+        // 优先从 Redis Hash 读取这条路由；Hash 中没有或者 Hash 可能落后于这次变更时，再查询数据库
+        Mono<Optional<RouteDefinition>> fromDatabase = routeStore.findById(routeId)
+                .filter(RouteDefinitionEntity::isEnabled)
+                .map(entity -> Optional.of(convertToRouteDefinition(entity)))
+                .defaultIfEmpty(Optional.empty());
+        return redisRepository.findById(routeId, version)
+                .map(Optional::of)
+                .onErrorResume(error -> {
+                    log.warn("Failed to read route [{}] from Redis, falling back to database.", routeId, error);
+                    return Mono.empty();
+                })
+                .switchIfEmpty(fromDatabase)
+                .map(resolved -> {
+                    // 路由不存在或已被禁用时，从快照中移除
+                    RouteDefinition rd = resolved.orElse(null);
+                    return snapshot.updateAndGet(s -> {
+                        if (isContained(s, version)) {
+                            // 查询期间已经有一次更新的全量重载完成，丢弃这次修补
+                            return s;
+                        }
+                        return rd != null ? s.withRoute(rd, version) : s.withoutRoute(routeId, version);
+                    });
+                });
+    }
+
+    private static boolean isContained(RouteSnapshot s, long version) {
+        return version != RouteChangeMessage.UNKNOWN_VERSION && version <= s.getRevision();
+    }
+
+    /**
+     * 请求一次全量重载。重载进行期间到达的请求会被合并，在当前重载结束后只再执行一次
+     */
+    private void requestReload() {
+        if (reloadWip.getAndIncrement() == 0) {
+            drainReloads(1);
+        }
+    }
+
+    private void drainReloads(int missed) {
+        reload().onErrorResume(error -> {
+                    log.error("Failed to reload routes from database.", error);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    int remaining = reloadWip.addAndGet(-missed);
+                    if (remaining != 0) {
+                        drainReloads(remaining);
+                    }
+                })
+                .subscribe(reloaded -> refreshCoordinator.requestRefresh());
+    }
+
+    /**
+     * 全量加载路由并安装为新的快照：优先从 Redis 的路由 Hash 读取，只有 Hash 为空、读取失败，
+     * 或者 Hash 的版本号与全局版本号不一致 (有写入绕过了 Hash) 时才回退到数据库。
+     * 必须先读取版本号再读取路由：写入方总是先写数据库和 Hash 再递增版本号，因此读到的路由一定包含了不大于该版本号的所有变更。
+     */
+    private Mono<RouteSnapshot> reload() {
+        return Mono.zip(currentRevision(), hashRevision()).flatMap(revisions -> {
+                    long revision = revisions.getT1();
+                    boolean hashCurrent = revision != RouteChangeMessage.UNKNOWN_VERSION && revisions.getT2() == revision;
+                    if (!hashCurrent) {
+                        log.info("Redis route hash revision {} does not match route revision {}, loading from database.", revisions.getT2(), revision);
+                    }
+                    Mono<List<RouteDefinition>> fromRedis = hashCurrent ? loadFromRedis() : Mono.empty();
+                    return fromRedis.switchIfEmpty(Mono.defer(this::loadFromDatabase))
+                            .map(definitions -> RouteSnapshot.of(revision, definitions));
+                })
+                .map(loaded -> snapshot.updateAndGet(s -> !s.isLoaded() || s == provisional || loaded.getRevision() >= s.getRevision() ? loaded : s))
+                .doOnNext(installed -> {
+                    log.info("Installed route snapshot with {} routes, revision {}.", installed.size(), installed.getRevision());
+                    snapshotFile.save(installed);
+                });
+    }
+
+    private Mono<List<RouteDefinition>> loadFromRedis() {
+        return redisRepository.getRouteDefinitions()
+                .collectList()
+                .filter(definitions -> !definitions.isEmpty())
+                .doOnNext(definitions -> log.info("Loaded {} active routes from Redis.", definitions.size()))
+                .onErrorResume(error -> {
+                    log.warn("Failed to load routes from Redis, falling back to database.", error);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 增量加载：先只读取启用路由的 (id, content_hash)，内容哈希与上次加载时相同的路由直接复用已解析的定义，
+     * 只有新增或变化的行才读取 TEXT 列并解析 JSON；不再出现的路由被丢弃。
+     * content_hash 为空的旧数据每次都会重新读取，见 readme 中的回填语句。
+     */
+    private Mono<List<RouteDefinition>> loadFromDatabase() {
         log.debug("Loading active routes from database.");
-        // JPA 是阻塞 IO，必须在专用的弹性线程池上执行，以避免阻塞 Netty 的事件循环线程
-        // 只加载启用的路由 (enabled = true)，在数据库层面进行过滤以提高效率
-        return Mono.fromCallable(() -> jpaRepository.findByEnabled(true))
-                .flatMapMany(Flux::fromIterable)
-                .map(this::convertToRouteDefinition)
-                .subscribeOn(Schedulers.boundedElastic());
+        Map<String, ParsedRoute> previous = parsedRoutes;
+        return routeStore.findEnabledContentHashes().collectList().flatMap(hashes -> {
+            Set<String> changedIds = new HashSet<>();
+            for (RouteContentHash hash : hashes) {
+                ParsedRoute parsed = previous.get(hash.id());
+                if (parsed == null || hash.contentHash() == null || !hash.contentHash().equals(parsed.contentHash())) {
+                    changedIds.add(hash.id());
+                }
+            }
+            // JSON 解析是 CPU 密集的工作，不在数据库驱动的 IO 线程上执行
+            return routeStore.findAllById(changedIds)
+                    .publishOn(Schedulers.parallel())
+                    // 两次查询之间被禁用的路由不再加载
+                    .filter(RouteDefinitionEntity::isEnabled)
+                    .collectMap(RouteDefinitionEntity::getId, entity -> new ParsedRoute(entity.getContentHash(), convertToRouteDefinition(entity)))
+                    .map(fetched -> install(hashes, changedIds, fetched, previous));
+        });
+    }
+
+    private List<RouteDefinition> install(List<RouteContentHash> hashes, Set<String> changedIds,
+                                          Map<String, ParsedRoute> fetched, Map<String, ParsedRoute> previous) {
+        Map<String, ParsedRoute> current = new HashMap<>();
+        List<RouteDefinition> definitions = new ArrayList<>(hashes.size());
+        for (RouteContentHash hash : hashes) {
+            // 两次查询之间被删除的路由不在 fetched 中，在这里被跳过
+            ParsedRoute parsed = changedIds.contains(hash.id()) ? fetched.get(hash.id()) : previous.get(hash.id());
+            if (parsed != null) {
+                current.put(hash.id(), parsed);
+                definitions.add(parsed.definition());
+            }
+        }
+        parsedRoutes = current;
+        log.info("Loaded {} active routes from database ({} parsed, {} unchanged).",
+                definitions.size(), fetched.size(), definitions.size() - fetched.size());
+        return definitions;
+    }
+
+    private Mono<Long> hashRevision() {
+        return redisRepository.getHashRevision()
+                .onErrorResume(error -> {
+                    log.warn("Failed to read route hash revision from Redis.", error);
+                    return Mono.just(-1L);
+                });
+    }
+
+    private Mono<Long> currentRevision() {
+        return redisRepository.getRouteRevision()
+                .onErrorResume(error -> {
+                    log.warn("Failed to read route revision from Redis.", error);
+                    return Mono.just(RouteChangeMessage.UNKNOWN_VERSION);
+                });
     }
 
     @Override
     public Mono<Void> save(Mono<RouteDefinition> routeDefinitionMono) {
-        return routeDefinitionMono.flatMap(rd ->
-                Mono.fromRunnable(() -> {
-                    // 1. 先根据 ID 查找现有实体，以保留 enabled 等数据库特有的状态
-                    RouteDefinitionEntity entity = jpaRepository.findById(rd.getId())
-                            .orElseGet(() -> {
-                                // 2. 如果不存在，则创建一个新实体。ID 来源于传入的 RouteDefinition。
-                                // 新建的路由默认是启用的 (enabled=true)，由 RouteDefinitionEntity 的字段默认值保证。
-                                RouteDefinitionEntity newEntity = new RouteDefinitionEntity();
-                                newEntity.setId(rd.getId());
-                                return newEntity;
-                            });
-
+        return routeDefinitionMono.flatMap(rd -> routeStore.findById(rd.getId())
+                // 1. 先根据 ID 查找现有实体，以保留 enabled 等数据库特有的状态
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    // 2. 如果不存在，则创建一个新实体。ID 来源于传入的 RouteDefinition。
+                    // 新建的路由默认是启用的 (enabled=true)，由 RouteDefinitionEntity 的字段默认值保证。
+                    RouteDefinitionEntity newEntity = new RouteDefinitionEntity();
+                    newEntity.setId(rd.getId());
+                    return newEntity;
+                }))
+                .flatMap(entity -> {
                     // 3. 使用传入的 RouteDefinition 更新实体的属性
                     entity.setUri(rd.getUri().toString());
                     entity.setRouteOrder(rd.getOrder());
                     try {
                         entity.setPredicates(objectMapper.writeValueAsString(rd.getPredicates()));
                         entity.setFilters(objectMapper.writeValueAsString(rd.getFilters()));
-//                        log.info("save: {}",objectMapper.writeValueAsString(rd));
                     } catch (JsonProcessingException e) {
                         log.error("Failed to serialize predicates or filters for route {}", rd.getId(), e);
-                        throw new RuntimeException("Error serializing route definition", e);
+                        return Mono.<Void>error(new RuntimeException("Error serializing route definition", e));
                     }
-
-                    jpaRepository.save(entity);
-                    notifyChanged();
-                }).subscribeOn(Schedulers.boundedElastic())
-        ).then();
+                    return routeStore.save(entity);
+                })
+                // 这条写入绕过了 Redis 路由 Hash，Hash 版本号会落后，读取方将回退到数据库直到 Hash 被重建
+                .doOnSuccess(saved -> changeNotifier.upserted(rd.getId(), false)));
     }
 
     @Override
     public Mono<Void> delete(Mono<String> routeIdMono) {
-        return routeIdMono.flatMap(routeId ->
-                Mono.fromRunnable(() -> {
-                    jpaRepository.deleteById(routeId);
-                    notifyChanged();
-                }).subscribeOn(Schedulers.boundedElastic())
-        ).then();
-    }
-
-    private void notifyChanged() {
-        // 通知机制保持不变！仍然使用 Redis Pub/Sub
-        redisTemplate.convertAndSend(REFRESH_ROUTES_CHANNEL, "refresh")
-                .subscribe(null, error -> log.error("Failed to publish route refresh message to Redis.", error));
-        eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+        return routeIdMono.flatMap(routeId -> routeStore.deleteById(routeId)
+                .doOnSuccess(deleted -> changeNotifier.deleted(routeId, false)));
     }
 
     @SneakyThrows
-    private RouteDefinition convertToRouteDefinition(RouteDefinitionEntity entity) {
+    RouteDefinition convertToRouteDefinition(RouteDefinitionEntity entity) {
         var rd = new RouteDefinition();
         rd.setId(entity.getId());
         rd.setUri(URI.create(entity.getUri()));
         rd.setOrder(entity.getRouteOrder());
         rd.setPredicates(objectMapper.readValue(entity.getPredicates(), new TypeReference<List<PredicateDefinition>>() {
         }));
-        rd.setFilters(objectMapper.readValue(entity.getFilters(), new TypeReference<List<FilterDefinition>>() {
-        }));
+        // 管理后台保存的过滤器带有 enabled 标记，与 Redis 中的路由保持一致，只保留启用的过滤器
+        List<FilterInfo> filters = objectMapper.readValue(entity.getFilters(), new TypeReference<List<FilterInfo>>() {
+        });
+        rd.setFilters(filters.stream()
+                .filter(FilterInfo::isEnabled)
+                .map(this::convertToFilterDefinition)
+                .collect(Collectors.toList()));
         return rd;
     }
-}
\ No newline at end of file
+
+    private FilterDefinition convertToFilterDefinition(FilterInfo filterInfo) {
+        FilterDefinition fd = new FilterDefinition();
+        fd.setName(filterInfo.getName());
+        fd.setArgs(filterInfo.getArgs());
+        return fd;
+    }
+
+    private record ParsedRoute(String contentHash, RouteDefinition definition) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.ocft.gateway.openapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * 使用 {@link RouteMatchIndex} 查找路由的 HandlerMapping。
+ * <p>
+ * 默认实现对每个请求都按顺序执行全部路由的断言，路由数量上万时开销随路由数线性增长；
+ * 这里只对索引给出的少量候选路由按原顺序执行断言，匹配结果与默认实现一致。
+ * <p>
+ * 路由刷新开始时 ({@link RefreshRoutesEvent}) 旧索引立即作废，刷新结束后 ({@link RefreshRoutesResultEvent})
+ * 按 RouteLocator 中的路由重新编译；没有可用索引 (编译中、编译失败) 时退回默认实现，因此不会用旧路由匹配请求。
+ * 编译期间又开始了新的刷新时，编译结果直接丢弃。
+ */
+@Slf4j
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping {
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+
+    private volatile RouteMatchIndex index;
+    /**
+     * 每次刷新开始时加一，编译完成时据此判断结果是否已经过期
+     */
+    private long generation;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               RouteDefinitionLocator routeDefinitionLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+    }
+
+    @EventListener
+    public synchronized void onRefreshStarted(RefreshRoutesEvent event) {
+        generation++;
+        index = null;
+    }
+
+    /**
+     * 刷新失败时 RouteLocator 保留原来的路由，同样按它当前的路由编译
+     */
+    @EventListener
+    public void onRefreshFinished(RefreshRoutesResultEvent event) {
+        long started = currentGeneration();
+        Mono.zip(routeLocator.getRoutes().collectList(),
+                        routeDefinitionLocator.getRouteDefinitions().collectMap(RouteDefinition::getId))
+                .map(tuple -> RouteMatchIndex.build(tuple.getT1(), tuple.getT2()))
+                .subscribe(built -> install(started, built), error -> {
+                    log.error("Failed to compile route match index, falling back to the linear route scan.", error);
+                    install(started, null);
+                });
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private synchronized void install(long started, RouteMatchIndex built) {
+        if (generation != started) {
+            log.debug("Discarding route match index compiled before the latest route refresh.");
+            return;
+        }
+        index = built;
+        if (built != null) {
+            log.info("Compiled route match index for {} routes ({} without a Path predicate).",
+                    built.getRouteCount(), built.getUnindexedCount());
+        }
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        RouteMatchIndex current = index;
+        if (current == null) {
+            return super.lookupRoute(exchange);
+        }
+        List<Route> candidates = current.candidates(exchange.getRequest());
+        // 与默认实现相同：按顺序执行断言，第一个匹配的路由胜出，单条路由的断言异常不影响其他路由
+        return Flux.fromIterable(candidates)
+                .concatMap(route -> Mono.just(route).filterWhen(r -> {
+                                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, r.getId());
+                                    return r.getPredicate().apply(exchange);
+                                })
+                                .doOnError(e -> log.error("Error applying predicate for route: {}", route.getId(), e))
+                                .onErrorResume(e -> Mono.empty()))
+                .next()
+                .map(route -> {
+                    log.debug("Route matched: {}", route.getId());
+                    validateRoute(route, exchange);
+                    return route;
+                });
+    }
+}
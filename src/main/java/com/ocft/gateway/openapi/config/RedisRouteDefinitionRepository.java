@@ -4,16 +4,29 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.route.RouteDefinition;
-import org.springframework.cloud.gateway.route.RouteDefinitionRepository;
-import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Redis tier of the route store.
+ * <p>
+ * The {@code gateway:routes} hash holds the data-plane view of every enabled route (only enabled filters),
+ * and {@link #HASH_REVISION_KEY} records the global route revision up to which the hash is known to be
+ * complete. {@link DatabaseRouteDefinitionRepository} reads routes from here and only falls back to MySQL
+ * on a miss or when the hash revision does not match {@link RouteChangeNotifier#ROUTES_VERSION_KEY}.
+ */
 @Repository
 @Slf4j
 @RequiredArgsConstructor
@@ -23,28 +36,102 @@ public class RedisRouteDefinitionRepository
 
     private static final String ROUTES_KEY = "gateway:routes";
     public static final String REFRESH_ROUTES_CHANNEL = "gateway:routes:refresh";
+    public static final String HASH_REVISION_KEY = "gateway:routes:hash-revision";
+
+    /**
+     * Replaces the whole hash and marks it complete at ARGV[1], but only if no other write
+     * has bumped the global version since the caller read it.
+     */
+    private static final RedisScript<Long> REBUILD_SCRIPT = RedisScript.of(
+            "if tonumber(redis.call('GET', KEYS[2]) or '0') ~= tonumber(ARGV[1]) then return 0 end "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+                    + "redis.call('SET', KEYS[3], ARGV[1]) "
+                    + "return 1", Long.class);
 
     private final ReactiveStringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
-    private final ApplicationEventPublisher eventPublisher;
+    private final RouteChangeNotifier changeNotifier;
+
+    @Value("${gateway.routes.redis.scan-count:500}")
+    private int scanCount;
 
+    /**
+     * Streams all routes from the hash with {@code HSCAN}, so a large route table is fetched in
+     * {@code gateway.routes.redis.scan-count} sized pages instead of one huge {@code HVALS} reply.
+     */
     public Flux<RouteDefinition> getRouteDefinitions() {
         log.debug("Loading routes from Redis.");
-        return redisTemplate.opsForHash().values(ROUTES_KEY)
-                .flatMap(routeJson -> {
-                    try {
-                        return Mono.just(objectMapper.readValue((String) routeJson, RouteDefinition.class));
-                    } catch (JsonProcessingException e) {
-                        // A more resilient approach: log the error and skip the invalid route
-                        // instead of failing the entire stream.
-                        log.error("Failed to parse route definition from Redis: {}", routeJson, e);
-                        return Mono.empty();
-                    }
-                })
+        return redisTemplate.<String, String>opsForHash()
+                .scan(ROUTES_KEY, ScanOptions.scanOptions().count(scanCount).build())
+                .flatMap(entry -> parse(entry.getValue()))
                 .doOnComplete(() -> log.info("Successfully loaded routes from Redis."))
                 .doOnError(error -> log.error("Error loading routes from Redis.", error));
     }
 
+    /**
+     * Reads a single route from the hash, provided the hash is known to contain every change up to
+     * {@code minRevision}. Completes empty when the route is absent or the hash may be stale.
+     */
+    public Mono<RouteDefinition> findById(String routeId, long minRevision) {
+        return getHashRevision()
+                .filter(hashRevision -> hashRevision >= minRevision)
+                .flatMap(hashRevision -> redisTemplate.<String, String>opsForHash().get(ROUTES_KEY, routeId))
+                .flatMap(this::parse);
+    }
+
+    /**
+     * The revision up to which the hash is complete; a missing key counts as the initial revision 0.
+     */
+    public Mono<Long> getHashRevision() {
+        return redisTemplate.opsForValue().get(HASH_REVISION_KEY)
+                .map(Long::parseLong)
+                .defaultIfEmpty(RouteChangeMessage.UNKNOWN_VERSION);
+    }
+
+    /**
+     * The current global route revision, see {@link RouteChangeNotifier#ROUTES_VERSION_KEY}.
+     */
+    public Mono<Long> getRouteRevision() {
+        return redisTemplate.opsForValue().get(RouteChangeNotifier.ROUTES_VERSION_KEY)
+                .map(Long::parseLong)
+                .defaultIfEmpty(RouteChangeMessage.UNKNOWN_VERSION);
+    }
+
+    /**
+     * Atomically replaces the hash with the given routes and marks it complete at {@code revision}.
+     * Emits false if a concurrent write changed the global version in the meantime.
+     */
+    public Mono<Boolean> rebuild(long revision, Collection<RouteDefinition> routeDefinitions) {
+        List<String> args = new ArrayList<>(routeDefinitions.size() * 2 + 1);
+        args.add(String.valueOf(revision));
+        for (RouteDefinition routeDefinition : routeDefinitions) {
+            try {
+                args.add(routeDefinition.getId());
+                args.add(objectMapper.writeValueAsString(routeDefinition));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize route definition for saving: [{}]", routeDefinition.getId(), e);
+                return Mono.error(e);
+            }
+        }
+        return redisTemplate.execute(REBUILD_SCRIPT, List.of(ROUTES_KEY, RouteChangeNotifier.ROUTES_VERSION_KEY, HASH_REVISION_KEY), args)
+                .next()
+                .map(result -> result == 1L)
+                .doOnNext(rebuilt -> log.info(rebuilt ? "Rebuilt Redis route hash with {} routes at revision {}."
+                        : "Skipped rebuilding Redis route hash with {} routes: revision {} is no longer current.", routeDefinitions.size(), revision));
+    }
+
+    private Mono<RouteDefinition> parse(String routeJson) {
+        try {
+            return Mono.just(objectMapper.readValue(routeJson, RouteDefinition.class));
+        } catch (JsonProcessingException e) {
+            // A more resilient approach: log the error and skip the invalid route
+            // instead of failing the entire stream.
+            log.error("Failed to parse route definition from Redis: {}", routeJson, e);
+            return Mono.empty();
+        }
+    }
+
     public Mono<Void> save(Mono<RouteDefinition> routeDefinitionMono) {
         return routeDefinitionMono.flatMap(routeDefinition -> {
             try {
@@ -52,7 +139,7 @@ public class RedisRouteDefinitionRepository
                 log.info("Saving route to Redis: [{}]", routeDefinition.getId());
                 return redisTemplate.opsForHash()
                         .put(ROUTES_KEY, routeDefinition.getId(), routeJson)
-                        .then(Mono.fromRunnable(this::notifyChanged));
+                        .then(Mono.fromRunnable(() -> changeNotifier.upserted(routeDefinition.getId(), true)));
             } catch (JsonProcessingException e) {
                 log.error("Failed to serialize route definition for saving: [{}]", routeDefinition.getId(), e);
                 return Mono.error(e);
@@ -65,24 +152,29 @@ public class RedisRouteDefinitionRepository
             log.info("Deleting route from Redis: [{}]", routeId);
             return redisTemplate.opsForHash()
                     .remove(ROUTES_KEY, routeId)
-                    .then(Mono.fromRunnable(this::notifyChanged));
+                    .then(Mono.fromRunnable(() -> changeNotifier.deleted(routeId, true)));
         });
     }
 
     /**
-     * Publishes a RefreshRoutesEvent to notify the gateway to reload routes.
+     * Writes a batch of routes to the hash without publishing any change notification.
+     * Enabled routes go out as a single multi-field {@code HSET}, removed ones as a single {@code HDEL},
+     * so a batch costs two round trips regardless of its size. The caller is responsible for
+     * publishing one notification for the whole batch.
      */
-    private void notifyChanged() {
-        // 1. Publish to Redis channel for other nodes
-        log.info("Publishing route change notification to Redis channel: {}", REFRESH_ROUTES_CHANNEL);
-        redisTemplate.convertAndSend(REFRESH_ROUTES_CHANNEL, "refresh")
-                .subscribe(
-                        null, // onNext is not needed for fire-and-forget
-                        error -> log.error("Failed to publish route refresh message to Redis.", error)
-                );
-
-        // 2. Publish local event for immediate refresh on this node
-        log.info("Publishing local RefreshRoutesEvent.");
-        this.eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+    public Mono<Void> saveAll(Collection<RouteDefinition> routeDefinitions, Collection<String> removedRouteIds) {
+        Map<String, String> routeJsons = new LinkedHashMap<>();
+        for (RouteDefinition routeDefinition : routeDefinitions) {
+            try {
+                routeJsons.put(routeDefinition.getId(), objectMapper.writeValueAsString(routeDefinition));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize route definition for saving: [{}]", routeDefinition.getId(), e);
+                return Mono.error(e);
+            }
+        }
+        log.info("Saving {} routes to Redis and removing {}.", routeJsons.size(), removedRouteIds.size());
+        Mono<Boolean> put = routeJsons.isEmpty() ? Mono.just(true) : redisTemplate.opsForHash().putAll(ROUTES_KEY, routeJsons);
+        Mono<Long> remove = removedRouteIds.isEmpty() ? Mono.just(0L) : redisTemplate.opsForHash().remove(ROUTES_KEY, removedRouteIds.toArray());
+        return put.then(remove).then();
     }
 }
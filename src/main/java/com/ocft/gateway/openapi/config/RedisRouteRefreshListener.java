@@ -1,9 +1,10 @@
 package com.ocft.gateway.openapi.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Component;
@@ -18,6 +19,8 @@ import static com.ocft.gateway.openapi.config.DatabaseRouteDefinitionRepository.
  * Listens to Redis Pub/Sub channel for route refresh notifications.
  * This ensures that all gateway instances in a cluster refresh their routes
  * when a change is made on any single instance.
+ * Messages are {@link RouteChangeMessage} JSON payloads, so each node can patch only the affected route;
+ * anything unparseable (e.g. the legacy plain "refresh" string) is treated as a full refresh.
  * The subscription includes a retry mechanism to enhance resilience against transient startup errors.
  */
 @Component
@@ -27,15 +30,20 @@ public class RedisRouteRefreshListener {
 
     private final ReactiveStringRedisTemplate redisTemplate;
     private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final RouteRefreshCoordinator refreshCoordinator;
 
     @PostConstruct
     public void init() {
         this.redisTemplate
                 .listenToChannel(REFRESH_ROUTES_CHANNEL)
+                .map(message -> parse(message.getMessage()))
+                // Changes published by this node were already applied locally before being broadcast
+                .filter(message -> !refreshCoordinator.isOwnMessage(message))
                 .doOnNext(message -> {
-                    log.info("Received route refresh notification from Redis channel: {}", message.getMessage());
-                    // Publish a local event to trigger the route refresh
-                    eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+                    log.info("Received route change notification from Redis channel: {}", message);
+                    // Publish a local event so the route repository can apply the change
+                    eventPublisher.publishEvent(message);
                 })
                 .doOnError(error -> log.error("Error listening to Redis route refresh channel.", error))
                 // Add a retry mechanism for resilience during startup or transient network issues.
@@ -44,4 +52,16 @@ public class RedisRouteRefreshListener {
                 .subscribe(); // Must subscribe to start listening
         log.info("Subscribed to Redis route refresh channel: {}", REFRESH_ROUTES_CHANNEL);
     }
-}
\ No newline at end of file
+
+    private RouteChangeMessage parse(String payload) {
+        try {
+            RouteChangeMessage message = objectMapper.readValue(payload, RouteChangeMessage.class);
+            if (message.getOperation() != null) {
+                return message;
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Route refresh payload is not a change message, falling back to a full refresh: {}", payload);
+        }
+        return RouteChangeMessage.full(RouteChangeMessage.UNKNOWN_VERSION);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ocft.gateway.openapi.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在 {@code gateway:routes:refresh} 频道上传播的路由变更消息。
+ * <p>
+ * 消息携带路由 ID、操作类型和一个全局单调递增的版本号，
+ * 使每个节点都能只修补自己内存路由表中的那一条路由，而不是对整张表做一次全量重载。
+ * 同一个对象也会作为本地 Spring 事件发布，由 {@link DatabaseRouteDefinitionRepository} 消费。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteChangeMessage {
+
+    /**
+     * Version used when the global version counter could not be incremented (e.g. Redis is down).
+     * Messages carrying it are always applied, never discarded as stale.
+     */
+    public static final long UNKNOWN_VERSION = 0L;
+
+    public enum Operation {
+        /** The route was created or updated; re-read this single route. */
+        UPSERT,
+        /** The route was deleted or disabled; drop it from the routing table. */
+        DELETE,
+        /** The whole table may have changed; fall back to a full reload. */
+        FULL
+    }
+
+    private String routeId;
+
+    private Operation operation;
+
+    private long version;
+
+    /**
+     * Id of the node that published the change, used to suppress echoes of its own messages
+     */
+    private String origin;
+
+    public static RouteChangeMessage full(long version) {
+        return new RouteChangeMessage(null, Operation.FULL, version, null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ocft.gateway.openapi.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.ocft.gateway.openapi.config.DatabaseRouteDefinitionRepository.REFRESH_ROUTES_CHANNEL;
+
+/**
+ * Publishes {@link RouteChangeMessage}s for route writes.
+ * <p>
+ * Every change is stamped with a cluster-wide version taken from an {@code INCR} on
+ * {@link #ROUTES_VERSION_KEY}, applied locally through a Spring event and broadcast to the
+ * other nodes over {@link DatabaseRouteDefinitionRepository#REFRESH_ROUTES_CHANNEL}, tagged with this node's id
+ * so the echo coming back from Redis can be ignored. The same script keeps the hash revision of
+ * {@link RedisRouteDefinitionRepository} in step with the version.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RouteChangeNotifier {
+
+    public static final String ROUTES_VERSION_KEY = "gateway:routes:version";
+
+    /**
+     * Increments the global version and, for writes that also went through the hash, moves the hash revision
+     * along with it - but only if the hash was complete before this write.
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of(
+            "local version = redis.call('INCR', KEYS[1]) "
+                    + "if ARGV[1] == '1' and tonumber(redis.call('GET', KEYS[2]) or '0') == version - 1 then "
+                    + "redis.call('SET', KEYS[2], version) end "
+                    + "return version", Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RouteRefreshCoordinator refreshCoordinator;
+
+    public void upserted(String routeId, boolean hashUpdated) {
+        publish(routeId, RouteChangeMessage.Operation.UPSERT, hashUpdated);
+    }
+
+    public void deleted(String routeId, boolean hashUpdated) {
+        publish(routeId, RouteChangeMessage.Operation.DELETE, hashUpdated);
+    }
+
+    public void fullRefresh(boolean hashUpdated) {
+        publish(null, RouteChangeMessage.Operation.FULL, hashUpdated);
+    }
+
+    /**
+     * @param hashUpdated whether the writer has already applied this change to the {@code gateway:routes} hash.
+     *                    Writes that bypass the hash leave the hash revision behind, so readers fall back to MySQL
+     *                    until the hash is rebuilt.
+     */
+    private void publish(String routeId, RouteChangeMessage.Operation operation, boolean hashUpdated) {
+        redisTemplate.execute(INCREMENT_SCRIPT, List.of(ROUTES_VERSION_KEY, RedisRouteDefinitionRepository.HASH_REVISION_KEY),
+                        List.of(hashUpdated ? "1" : "0"))
+                .next()
+                .onErrorResume(error -> {
+                    // Redis 不可用时仍然要在本节点生效，只是无法广播给其他节点
+                    log.error("Failed to increment route version, applying change [{} {}] locally only.", operation, routeId, error);
+                    return Mono.just(RouteChangeMessage.UNKNOWN_VERSION);
+                })
+                .map(version -> new RouteChangeMessage(routeId, operation, version, refreshCoordinator.getNodeId()))
+                .doOnNext(message -> {
+                    log.info("Publishing route change: {}", message);
+                    eventPublisher.publishEvent(message);
+                })
+                .filter(message -> message.getVersion() != RouteChangeMessage.UNKNOWN_VERSION)
+                .flatMap(message -> redisTemplate.convertAndSend(REFRESH_ROUTES_CHANNEL, toJson(message)))
+                .subscribe(null, error -> log.error("Failed to publish route change message to Redis.", error));
+    }
+
+    private String toJson(RouteChangeMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializing route change message", e);
+        }
+    }
+}
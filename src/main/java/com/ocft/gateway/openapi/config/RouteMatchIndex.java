@@ -0,0 +1,258 @@
+package com.ocft.gateway.openapi.config;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 路由匹配索引，在每次路由刷新后编译一次，之后只读。
+ * <p>
+ * 索引是一棵按路径段 (segment) 组织的前缀树 (radix trie)：每条路由按其 {@code Path} 断言中模式的字面量前缀
+ * (第一个包含 {@code * ? &#123;} 的段之前的部分) 挂在对应的节点上，没有 {@code Path} 断言的路由挂在根节点。
+ * 每个节点上再按 {@code Host} 断言的字面量主机名做一次哈希分派，并用 {@code Method} 断言做过滤。
+ * <p>
+ * 查找时只沿着请求路径走一遍前缀树，收集路径上各节点的候选路由，按它们在 RouteLocator 中的原始位置排序后返回。
+ * 候选集合一定是"可能匹配的路由"的超集，调用方仍然要按顺序执行完整的断言，因此 {@code order} 语义保持不变。
+ */
+public final class RouteMatchIndex {
+
+    private static final String PATH = "Path";
+    private static final String HOST = "Host";
+    private static final String METHOD = "Method";
+    /**
+     * 断言中不是模式的开关类参数
+     */
+    private static final Set<String> FLAG_ARGS = Set.of("matchTrailingSlash", "includePort");
+
+    private final Node root;
+    private final int routeCount;
+    private final int unindexedCount;
+
+    private RouteMatchIndex(Node root, int routeCount, int unindexedCount) {
+        this.root = root;
+        this.routeCount = routeCount;
+        this.unindexedCount = unindexedCount;
+    }
+
+    /**
+     * @param routes      按优先级排好序的路由，即 RouteLocator 返回的顺序
+     * @param definitions 以路由 ID 为键的路由定义；找不到定义的路由无法分析，会被当成对所有请求都是候选
+     */
+    public static RouteMatchIndex build(List<Route> routes, Map<String, RouteDefinition> definitions) {
+        Node root = new Node();
+        int unindexed = 0;
+        for (int position = 0; position < routes.size(); position++) {
+            Route route = routes.get(position);
+            RouteDefinition definition = definitions.get(route.getId());
+            List<PredicateDefinition> predicates = definition != null ? definition.getPredicates() : List.of();
+
+            Set<String> hosts = literalHosts(firstArgs(predicates, HOST));
+            Set<HttpMethod> methods = methods(firstArgs(predicates, METHOD));
+            Entry entry = new Entry(position, route, methods);
+
+            List<String> pathPatterns = firstArgs(predicates, PATH);
+            if (pathPatterns == null) {
+                root.add(hosts, entry);
+                unindexed++;
+                continue;
+            }
+            for (String pattern : pathPatterns) {
+                Node node = root;
+                for (String segment : literalPrefix(pattern)) {
+                    node = node.children.computeIfAbsent(segment, key -> new Node());
+                }
+                node.add(hosts, entry);
+            }
+        }
+        root.freeze();
+        return new RouteMatchIndex(root, routes.size(), unindexed);
+    }
+
+    /**
+     * 返回可能匹配该请求的路由，顺序与 RouteLocator 中的顺序一致
+     */
+    public List<Route> candidates(ServerHttpRequest request) {
+        String host = request.getHeaders().getFirst("Host");
+        HttpMethod method = request.getMethod();
+        List<Entry> found = new ArrayList<>();
+
+        Node node = root;
+        node.collect(host, method, found);
+        for (PathContainer.Element element : request.getPath().pathWithinApplication().elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            node = node.children.get(segment.valueToMatch());
+            if (node == null) {
+                break;
+            }
+            node.collect(host, method, found);
+        }
+
+        found.sort(Comparator.comparingInt(Entry::position));
+        List<Route> candidates = new ArrayList<>(found.size());
+        int last = -1;
+        for (Entry entry : found) {
+            // 同一条路由的多个模式可能挂在同一条路径的不同节点上，去重
+            if (entry.position() != last) {
+                candidates.add(entry.route());
+                last = entry.position();
+            }
+        }
+        return candidates;
+    }
+
+    public int getRouteCount() {
+        return routeCount;
+    }
+
+    /**
+     * 没有 Path 断言 (或无法分析) 的路由数量，它们对每个请求都是候选
+     */
+    public int getUnindexedCount() {
+        return unindexedCount;
+    }
+
+    /**
+     * 取第一个同名断言的参数值。多个同名断言之间是"与"的关系，只用其中一个建立索引不会漏掉候选
+     */
+    private static List<String> firstArgs(List<PredicateDefinition> predicates, String name) {
+        for (PredicateDefinition predicate : predicates) {
+            if (name.equals(predicate.getName())) {
+                List<String> values = new ArrayList<>();
+                predicate.getArgs().forEach((key, value) -> {
+                    if (!FLAG_ARGS.contains(key) && value != null) {
+                        Arrays.stream(value.split(","))
+                                .map(String::trim)
+                                .filter(v -> !v.isEmpty())
+                                .forEach(values::add);
+                    }
+                });
+                return values.isEmpty() ? null : values;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 路径模式中第一个通配段之前的字面量段，例如 /api/orders/{id}/** 得到 [api, orders]
+     */
+    static List<String> literalPrefix(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                if (segments.isEmpty()) {
+                    continue;
+                }
+                break;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                break;
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * 全部是字面量时返回主机名集合，只要有一个模式带通配符就返回 null (表示任意主机都是候选)
+     */
+    private static Set<String> literalHosts(List<String> patterns) {
+        if (patterns == null) {
+            return null;
+        }
+        Set<String> hosts = new HashSet<>();
+        for (String pattern : patterns) {
+            if (pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 || pattern.indexOf('{') >= 0) {
+                return null;
+            }
+            hosts.add(pattern);
+        }
+        return hosts;
+    }
+
+    private static Set<HttpMethod> methods(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<HttpMethod> methods = new HashSet<>();
+        values.forEach(value -> methods.add(HttpMethod.valueOf(value.toUpperCase())));
+        return methods;
+    }
+
+    private record Entry(int position, Route route, Set<HttpMethod> methods) {
+
+        boolean accepts(HttpMethod method) {
+            return methods == null || methods.contains(method);
+        }
+    }
+
+    private static final class Node {
+
+        private static final Entry[] NONE = new Entry[0];
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final Map<String, List<Entry>> byHostBuilder = new HashMap<>();
+        private final List<Entry> anyHostBuilder = new ArrayList<>();
+
+        private Map<String, Entry[]> byHost = Map.of();
+        private Entry[] anyHost = NONE;
+
+        void add(Set<String> hosts, Entry entry) {
+            if (hosts == null) {
+                anyHostBuilder.add(entry);
+            } else {
+                hosts.forEach(host -> byHostBuilder.computeIfAbsent(host, key -> new ArrayList<>()).add(entry));
+            }
+        }
+
+        void freeze() {
+            anyHost = anyHostBuilder.toArray(NONE);
+            Map<String, Entry[]> frozen = new HashMap<>();
+            byHostBuilder.forEach((host, entries) -> frozen.put(host, entries.toArray(NONE)));
+            byHost = frozen;
+            anyHostBuilder.clear();
+            byHostBuilder.clear();
+            children.values().forEach(Node::freeze);
+        }
+
+        void collect(String host, HttpMethod method, List<Entry> found) {
+            for (Entry entry : anyHost) {
+                if (entry.accepts(method)) {
+                    found.add(entry);
+                }
+            }
+            if (host != null && !byHost.isEmpty()) {
+                collect(byHost.get(host), method, found);
+                // Host 断言可以配置为忽略端口，因此去掉端口后再分派一次
+                int colon = host.lastIndexOf(':');
+                if (colon > 0 && host.indexOf(']') < colon) {
+                    collect(byHost.get(host.substring(0, colon)), method, found);
+                }
+            }
+        }
+
+        private static void collect(Entry[] entries, HttpMethod method, List<Entry> found) {
+            if (entries == null) {
+                return;
+            }
+            for (Entry entry : entries) {
+                if (entry.accepts(method)) {
+                    found.add(entry);
+                }
+            }
+        }
+    }
+}
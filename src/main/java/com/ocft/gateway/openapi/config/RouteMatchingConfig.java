@@ -0,0 +1,31 @@
+package com.ocft.gateway.openapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Replaces the default {@link RoutePredicateHandlerMapping} with {@link IndexedRoutePredicateHandlerMapping}.
+ * The gateway's own bean backs off because it is declared {@code @ConditionalOnMissingBean}.
+ * Set {@code gateway.routes.index.enabled=false} to go back to the linear route scan.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.routes.index", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RouteMatchingConfig {
+
+    @Bean
+    public RoutePredicateHandlerMapping routePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                     RouteLocator routeLocator,
+                                                                     RouteDefinitionLocator routeDefinitionLocator,
+                                                                     GlobalCorsProperties globalCorsProperties,
+                                                                     Environment environment) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, routeDefinitionLocator,
+                globalCorsProperties, environment);
+    }
+}
@@ -0,0 +1,115 @@
+package com.ocft.gateway.openapi.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses bursts of route refresh requests into a single {@link RefreshRoutesEvent}.
+ * <p>
+ * A refresh fires once no new request has arrived for {@code gateway.routes.refresh.quiet-period},
+ * but never later than {@code gateway.routes.refresh.max-staleness} after the first pending request,
+ * so a continuous stream of edits still becomes visible in bounded time.
+ * <p>
+ * The coordinator also owns the node id stamped on outgoing {@link RouteChangeMessage}s, which lets
+ * {@link RedisRouteRefreshListener} drop this node's own messages when they echo back from Redis.
+ */
+@Component
+@Slf4j
+public class RouteRefreshCoordinator {
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration quietPeriod;
+    private final Duration maxStaleness;
+    private final Scheduler scheduler = Schedulers.newSingle("route-refresh");
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong echoesSuppressed = new AtomicLong();
+
+    // Guarded by "this"
+    private Disposable pending;
+    private long generation;
+    private long firstPendingAt;
+
+    public RouteRefreshCoordinator(ApplicationEventPublisher eventPublisher,
+                                   @Value("${gateway.routes.refresh.quiet-period:200ms}") Duration quietPeriod,
+                                   @Value("${gateway.routes.refresh.max-staleness:2s}") Duration maxStaleness) {
+        this.eventPublisher = eventPublisher;
+        this.quietPeriod = quietPeriod;
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * Requests a rebuild of the route locator. The actual {@link RefreshRoutesEvent} is published
+     * asynchronously once the burst this request belongs to has settled.
+     */
+    public synchronized void requestRefresh() {
+        requested.incrementAndGet();
+        long now = System.nanoTime();
+        if (pending == null) {
+            firstPendingAt = now;
+        } else {
+            pending.dispose();
+        }
+        long untilDeadline = firstPendingAt + maxStaleness.toNanos() - now;
+        long delay = Math.max(0, Math.min(quietPeriod.toNanos(), untilDeadline));
+        long scheduledGeneration = ++generation;
+        pending = scheduler.schedule(() -> fire(scheduledGeneration), delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns true (and counts the echo) if the message was published by this node.
+     */
+    public boolean isOwnMessage(RouteChangeMessage message) {
+        if (nodeId.equals(message.getOrigin())) {
+            echoesSuppressed.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("requested", requested.get());
+        stats.put("executed", executed.get());
+        stats.put("coalesced", requested.get() - executed.get());
+        stats.put("echoesSuppressed", echoesSuppressed.get());
+        return stats;
+    }
+
+    private void fire(long scheduledGeneration) {
+        synchronized (this) {
+            if (scheduledGeneration != generation) {
+                // A newer request rescheduled the refresh after this task had already started
+                return;
+            }
+            pending = null;
+        }
+        executed.incrementAndGet();
+        log.info("Publishing coalesced RefreshRoutesEvent ({} requested / {} executed).", requested.get(), executed.get());
+        eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+}
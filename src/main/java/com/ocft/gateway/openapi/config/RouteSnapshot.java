@@ -0,0 +1,73 @@
+package com.ocft.gateway.openapi.config;
+
+import lombok.Getter;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不可变的路由表快照。
+ * <p>
+ * {@code revision} 对应 Redis 中 {@link RouteChangeNotifier#ROUTES_VERSION_KEY} 的全局版本号，
+ * 表示该快照已经包含了版本号不大于它的所有变更。修补操作总是返回一个新的快照 (copy-on-write)，
+ * 因此读路径可以在没有任何锁和 I/O 的情况下直接遍历当前快照。
+ */
+@Getter
+public final class RouteSnapshot {
+
+    /**
+     * 尚未完成首次加载时使用的占位快照
+     */
+    public static final RouteSnapshot NOT_LOADED = new RouteSnapshot(-1, Map.of());
+
+    private final long revision;
+
+    private final Map<String, RouteDefinition> routes;
+
+    private final List<RouteDefinition> definitions;
+
+    private RouteSnapshot(long revision, Map<String, RouteDefinition> routes) {
+        this.revision = revision;
+        this.routes = routes;
+        this.definitions = List.copyOf(routes.values());
+    }
+
+    public static RouteSnapshot of(long revision, Collection<RouteDefinition> definitions) {
+        Map<String, RouteDefinition> routes = new LinkedHashMap<>();
+        definitions.forEach(rd -> routes.put(rd.getId(), rd));
+        return new RouteSnapshot(revision, Collections.unmodifiableMap(routes));
+    }
+
+    public boolean isLoaded() {
+        return revision >= 0;
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * 返回一个新增或替换了指定路由的新快照
+     */
+    public RouteSnapshot withRoute(RouteDefinition rd, long newRevision) {
+        Map<String, RouteDefinition> copy = new LinkedHashMap<>(routes);
+        copy.put(rd.getId(), rd);
+        return new RouteSnapshot(Math.max(revision, newRevision), Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * 返回一个移除了指定路由的新快照
+     */
+    public RouteSnapshot withoutRoute(String routeId, long newRevision) {
+        if (!routes.containsKey(routeId)) {
+            return new RouteSnapshot(Math.max(revision, newRevision), routes);
+        }
+        Map<String, RouteDefinition> copy = new LinkedHashMap<>(routes);
+        copy.remove(routeId);
+        return new RouteSnapshot(Math.max(revision, newRevision), Collections.unmodifiableMap(copy));
+    }
+}
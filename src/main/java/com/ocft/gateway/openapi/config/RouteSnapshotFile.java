@@ -0,0 +1,180 @@
+package com.ocft.gateway.openapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * 本地磁盘上的路由快照文件，节点启动时先用它提供路由，不必等待 Redis 或 MySQL。
+ * <p>
+ * 文件格式 (大端序)：
+ * <pre>
+ * int magic | int format | long revision | int count | long crc32(body)
+ * body: count 个 (int length | length 字节的 RouteDefinition JSON)
+ * </pre>
+ * 写入时先写临时文件并 fsync，再原子重命名覆盖正式文件，读取方要么看到旧文件要么看到完整的新文件；
+ * 读取时通过内存映射直接解析，不再复制整个文件。校验失败的文件会被忽略。
+ * <p>
+ * 每次快照变化都会请求一次写入，写入在弹性线程池上执行，写入期间到达的请求只保留最新的那个快照。
+ * {@code gateway.routes.snapshot.file} 为空时不读也不写。
+ */
+@Slf4j
+@Component
+public class RouteSnapshotFile {
+
+    private static final int MAGIC = 0x47575253; // "GWRS"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8;
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    private final AtomicReference<RouteSnapshot> pending = new AtomicReference<>();
+    private final AtomicInteger writeWip = new AtomicInteger();
+    private volatile RouteSnapshot lastWritten;
+
+    public RouteSnapshotFile(ObjectMapper objectMapper,
+                             @Value("${gateway.routes.snapshot.file:}") String file) {
+        this.objectMapper = objectMapper;
+        this.file = StringUtils.hasText(file) ? Path.of(file) : null;
+    }
+
+    /**
+     * 读取上一次保存的快照，阻塞调用，只在启动时使用
+     * @return 文件不存在、未启用或已损坏时返回 Optional.empty()
+     */
+    public Optional<RouteSnapshot> read() {
+        if (file == null) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                log.warn("Ignoring route snapshot file {} with unexpected size {}.", file, size);
+                return Optional.empty();
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT) {
+                log.warn("Ignoring route snapshot file {} with unknown format.", file);
+                return Optional.empty();
+            }
+            long revision = mapped.getLong();
+            int count = mapped.getInt();
+            long checksum = mapped.getLong();
+            ByteBuffer body = mapped.slice();
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != checksum) {
+                log.warn("Ignoring route snapshot file {}, checksum mismatch.", file);
+                return Optional.empty();
+            }
+            List<RouteDefinition> definitions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = body.getInt();
+                ByteBuffer record = body.slice(body.position(), length);
+                definitions.add(objectMapper.readValue(new ByteBufferBackedInputStream(record), RouteDefinition.class));
+                body.position(body.position() + length);
+            }
+            RouteSnapshot snapshot = RouteSnapshot.of(revision, definitions);
+            lastWritten = snapshot;
+            log.info("Read route snapshot file {} with {} routes, revision {}.", file, snapshot.size(), revision);
+            return Optional.of(snapshot);
+        } catch (NoSuchFileException e) {
+            log.info("No route snapshot file at {}.", file);
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read route snapshot file {}.", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 请求把快照异步写入文件，不会阻塞调用方
+     */
+    public void save(RouteSnapshot snapshot) {
+        if (file == null || !snapshot.isLoaded() || snapshot == lastWritten) {
+            return;
+        }
+        pending.set(snapshot);
+        if (writeWip.getAndIncrement() == 0) {
+            Schedulers.boundedElastic().schedule(this::drainWrites);
+        }
+    }
+
+    private void drainWrites() {
+        int missed = 1;
+        do {
+            RouteSnapshot snapshot = pending.getAndSet(null);
+            if (snapshot != null && snapshot != lastWritten) {
+                try {
+                    write(snapshot);
+                    lastWritten = snapshot;
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to write route snapshot file {}.", file, e);
+                }
+            }
+            missed = writeWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void write(RouteSnapshot snapshot) throws IOException {
+        List<byte[]> records = new ArrayList<>(snapshot.size());
+        int bodyBytes = 0;
+        for (RouteDefinition definition : snapshot.getDefinitions()) {
+            byte[] record = objectMapper.writeValueAsBytes(definition);
+            records.add(record);
+            bodyBytes += 4 + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyBytes);
+        buffer.position(HEADER_BYTES);
+        records.forEach(record -> buffer.putInt(record.length).put(record));
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_BYTES, bodyBytes));
+        buffer.putInt(0, MAGIC)
+                .putInt(4, FORMAT)
+                .putLong(8, snapshot.getRevision())
+                .putInt(16, records.size())
+                .putLong(20, crc.getValue())
+                .flip();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.debug("Wrote route snapshot file {} with {} routes, revision {}.", file, records.size(), snapshot.getRevision());
+    }
+}
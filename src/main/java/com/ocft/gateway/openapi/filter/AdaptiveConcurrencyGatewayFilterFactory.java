@@ -0,0 +1,36 @@
+package com.ocft.gateway.openapi.filter;
+
+import com.ocft.gateway.openapi.concurrency.ConcurrencyLimiterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按路由的自适应并发限制，上限由 {@link ConcurrencyLimiterRegistry} 根据该路由观测到的 RTT 调整，
+ * 超出上限的请求立即返回 503 和 {@code Retry-After}。
+ * <p>
+ * 经过 UnitSelection 的请求已经按单元限制，这个过滤器用于普通路由或需要单独限制的路由。
+ * 在配置文件或管理后台中引用时，使用 'AdaptiveConcurrency'，不需要参数。
+ */
+@Component
+public class AdaptiveConcurrencyGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    private final ConcurrencyLimiterRegistry concurrencyLimiters;
+
+    public AdaptiveConcurrencyGatewayFilterFactory(ConcurrencyLimiterRegistry concurrencyLimiters) {
+        this.concurrencyLimiters = concurrencyLimiters;
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (route == null) {
+                return chain.filter(exchange);
+            }
+            return concurrencyLimiters.filterRoute(route.getId(), exchange, chain);
+        };
+    }
+}
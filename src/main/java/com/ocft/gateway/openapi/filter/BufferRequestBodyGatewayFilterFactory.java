@@ -0,0 +1,51 @@
+package com.ocft.gateway.openapi.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 为需要完整请求体的路由缓存请求体 (例如上游不支持分块传输，或后续过滤器需要重复读取请求体)。
+ * <p>
+ * 请求体会在转发之前被完整读入内存，上游要等整个请求体上传完成后才能收到第一个字节，
+ * 因此只应配置在确实需要它的路由上。其余路由的请求体由 RequestLoggingGlobalFilter 以旁路方式记录。
+ * <p>
+ * 在配置文件或管理后台中引用时，使用 'BufferRequestBody'。
+ */
+@Slf4j
+@Component
+public class BufferRequestBodyGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    /**
+     * 标记本次请求的请求体由这个过滤器缓存和记录
+     */
+    public static final String BUFFERED_REQUEST_BODY_ATTR = BufferRequestBodyGatewayFilterFactory.class.getName() + ".bufferedRequestBody";
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (method != HttpMethod.POST && method != HttpMethod.PUT && method != HttpMethod.PATCH) {
+                return chain.filter(exchange);
+            }
+            exchange.getAttributes().put(BUFFERED_REQUEST_BODY_ATTR, Boolean.TRUE);
+
+            // ServerWebExchangeUtils.cacheRequestBody() 会将请求体缓存起来，以便后续可以重复读取
+            return ServerWebExchangeUtils.cacheRequestBody(exchange, serverHttpRequest -> {
+                DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+                if (body != null && body.readableByteCount() > 0) {
+                    log.info("REQ::BODY: {}", body.toString(body.readPosition(), body.readableByteCount(), StandardCharsets.UTF_8)
+                            .replaceAll("[\r\n\t]", ""));
+                }
+                // 将包含了缓存请求体的 request 重新构建到 exchange 中，并继续过滤器链
+                return chain.filter(exchange.mutate().request(serverHttpRequest).build());
+            });
+        };
+    }
+}
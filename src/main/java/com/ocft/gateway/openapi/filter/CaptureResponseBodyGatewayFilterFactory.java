@@ -0,0 +1,85 @@
+package com.ocft.gateway.openapi.filter;
+
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按路由开启响应体捕获。
+ * <p>
+ * 这个过滤器本身不读取响应体，只是在被采样的请求上放一个 {@link Policy}，
+ * 由 FinalRequestLoggerGlobalFilter 的响应装饰器在写出响应时按策略捕获，没有配置该过滤器的路由完全不捕获。
+ * <p>
+ * 在配置文件或管理后台中引用时，使用 'CaptureResponseBody'，例如 {@code CaptureResponseBody=2048,0.1}。
+ */
+@Component
+public class CaptureResponseBodyGatewayFilterFactory extends AbstractGatewayFilterFactory<CaptureResponseBodyGatewayFilterFactory.Config> {
+
+    public static final String CAPTURE_POLICY_ATTR = CaptureResponseBodyGatewayFilterFactory.class.getName() + ".captureResponseBodyPolicy";
+
+    public CaptureResponseBodyGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxBytes", "sampleRate", "contentTypes");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // 路由构建时解析一次，请求路径上不再解析 MediaType
+        Policy policy = new Policy(Math.max(0, config.getMaxBytes()), MediaType.parseMediaTypes(config.getContentTypes()));
+        double sampleRate = config.getSampleRate();
+        return (exchange, chain) -> {
+            if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                exchange.getAttributes().put(CAPTURE_POLICY_ATTR, policy);
+            }
+            return chain.filter(exchange);
+        };
+    }
+
+    /**
+     * 配置类，用于接收来自路由定义的参数。
+     * 字段名必须与路由定义中 'args' 的键名匹配。
+     */
+    @Data
+    public static class Config {
+        /**
+         * 最多捕获的字节数，超出部分只计数，不复制
+         */
+        private int maxBytes = 4096;
+        /**
+         * 采样率，0 到 1 之间
+         */
+        private double sampleRate = 1.0;
+        /**
+         * 允许捕获的响应类型，逗号分隔，支持通配符
+         */
+        private List<String> contentTypes = List.of(MediaType.APPLICATION_JSON_VALUE, "text/*");
+    }
+
+    /**
+     * @param maxBytes     最多捕获的字节数
+     * @param contentTypes 允许捕获的响应类型
+     */
+    public record Policy(int maxBytes, List<MediaType> contentTypes) {
+
+        public boolean accepts(MediaType contentType) {
+            if (contentType == null || maxBytes == 0) {
+                return false;
+            }
+            for (MediaType allowed : contentTypes) {
+                if (allowed.includes(contentType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.ocft.gateway.openapi.filter;
+
+import com.ocft.gateway.openapi.cache.CachedBodyBuilder;
+import com.ocft.gateway.openapi.cache.ResponseCacheStore;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 合并并发的相同请求 (single-flight)：同一时刻相同的 GET/HEAD 请求只有第一个 (leader) 访问后端，
+ * 其余请求等待它的响应，拿到后各自写出同一份响应体。
+ * <p>
+ * 请求是否相同由方法、路由 ID、请求 URI、配置的请求头以及租户 ID 决定。过滤器的顺序固定在 {@link NettyWriteResponseFilter} 之前
+ * (否则替换的响应装饰器在写出响应时不会被使用)，也就在 RouteToRequestUrlFilter 之前执行，此时转发地址还没有确定，
+ * 但同一条路由、同一个租户的同一个 URI 一定被转发到同一个地址。
+ * <p>
+ * 响应在 leader 的响应体完整写出后才发布给等待者；响应体写出失败或被取消、或者 leader 没有写出响应体时，等待者自己访问后端。
+ * <p>
+ * 以下情况等待的请求会自己访问后端：等待超过 {@code maxWait}、响应体超过 {@code maxBodySize}、
+ * 响应带有 Set-Cookie，或者 leader 的请求失败或被取消。
+ * <p>
+ * 在配置文件或管理后台中引用时，使用 'CoalesceRequests'，例如 {@code CoalesceRequests=3s,256KB}。
+ */
+@Slf4j
+@Component
+public class CoalesceRequestsGatewayFilterFactory extends AbstractGatewayFilterFactory<CoalesceRequestsGatewayFilterFactory.Config> {
+
+    /**
+     * 正在访问后端的请求，响应发布后立即移除，之后到达的请求会发起新的一轮
+     */
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public CoalesceRequestsGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxWait", "maxBodySize", "headers");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Duration maxWait = config.getMaxWait();
+        int maxBodyBytes = (int) Math.min(Integer.MAX_VALUE, config.getMaxBodySize().toBytes());
+        List<String> keyHeaders = List.copyOf(config.getHeaders());
+        String tenantHeader = config.getTenantHeader();
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
+            if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+                return chain.filter(exchange);
+            }
+            String key = key(exchange, keyHeaders, tenantHeader);
+            Flight flight = new Flight(key);
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing != null) {
+                return follow(exchange, chain, existing, maxWait);
+            }
+            SharingResponseDecorator decorator = new SharingResponseDecorator(exchange.getResponse(), flight, maxBodyBytes);
+            return chain.filter(exchange.mutate().response(decorator).build())
+                    // 开始写出响应体后由响应体的完成、失败或取消决定是否发布；出错、取消或者根本没有写出响应体时，让等待的请求自己访问后端
+                    .doFinally(signal -> {
+                        if (signal != SignalType.ON_COMPLETE || !decorator.isWriting()) {
+                            flight.abandon();
+                        }
+                    });
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Flight flight, Duration maxWait) {
+        return flight.response()
+                .timeout(maxWait)
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.debug("Timed out waiting for coalesced request {}, calling upstream directly.", flight.key);
+                    return Mono.empty();
+                })
+                .flatMap(shared -> writeShared(exchange.getResponse(), shared).thenReturn(true))
+                .defaultIfEmpty(false)
+                .flatMap(served -> served ? Mono.<Void>empty() : chain.filter(exchange));
+    }
+
+    private static Mono<Void> writeShared(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        response.getHeaders().addAll(shared.headers());
+        response.getHeaders().setContentLength(shared.body().remaining());
+        if (!shared.body().hasRemaining()) {
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body().duplicate())));
+    }
+
+    private static String key(ServerWebExchange exchange, List<String> keyHeaders, String tenantHeader) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        HttpHeaders headers = request.getHeaders();
+        StringBuilder key = new StringBuilder(128)
+                .append(request.getMethod().name()).append(' ')
+                .append(route != null ? route.getId() : "").append(' ')
+                .append(request.getURI())
+                .append('\n').append(tenantHeader).append(':').append(headers.getFirst(tenantHeader));
+        for (String name : keyHeaders) {
+            key.append('\n').append(name).append(':');
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 发布给等待者的响应
+     */
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, ByteBuffer body) {
+    }
+
+    /**
+     * 一轮正在进行的请求
+     */
+    private final class Flight {
+
+        private final String key;
+        private final Sinks.One<SharedResponse> sink = Sinks.one();
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        Mono<SharedResponse> response() {
+            return sink.asMono();
+        }
+
+        void publish(SharedResponse response) {
+            flights.remove(key, this);
+            sink.tryEmitValue(response);
+        }
+
+        /**
+         * 没有可共享的响应；已经发布过时什么也不做
+         */
+        void abandon() {
+            flights.remove(key, this);
+            sink.tryEmitEmpty();
+        }
+    }
+
+    /**
+     * leader 的响应装饰器：在写出响应时复制一份响应体，完成后发布给等待者
+     */
+    private static final class SharingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final Flight flight;
+        private final int maxBodyBytes;
+        private volatile boolean writing;
+
+        SharingResponseDecorator(ServerHttpResponse delegate, Flight flight, int maxBodyBytes) {
+            super(delegate);
+            this.flight = flight;
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @NonNull
+        @Override
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            writing = true;
+            HttpHeaders headers = getHeaders();
+            long contentLength = headers.getContentLength();
+            // Set-Cookie 属于具体的客户端，不能发给其他请求
+            if (headers.containsKey(HttpHeaders.SET_COOKIE) || contentLength > maxBodyBytes) {
+                flight.abandon();
+                return super.writeWith(body);
+            }
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders sharedHeaders = ResponseCacheStore.storableHeaders(headers);
+            CachedBodyBuilder builder = new CachedBodyBuilder(maxBodyBytes, contentLength);
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(builder::append)
+                    .doOnComplete(() -> {
+                        if (builder.isOverflow()) {
+                            flight.abandon();
+                        } else {
+                            flight.publish(new SharedResponse(status, sharedHeaders, builder.build(false)));
+                        }
+                    })
+                    .doOnError(error -> flight.abandon())
+                    .doOnCancel(flight::abandon));
+        }
+
+        /**
+         * @return 是否已经开始写出响应体
+         */
+        boolean isWriting() {
+            return writing;
+        }
+
+        @NonNull
+        @Override
+        public Mono<Void> writeAndFlushWith(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(p -> p));
+        }
+    }
+
+    /**
+     * 配置类，用于接收来自路由定义的参数。
+     * 字段名必须与路由定义中 'args' 的键名匹配。
+     */
+    @Data
+    public static class Config {
+        /**
+         * 等待 leader 响应的最长时间，超时后自己访问后端
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+        /**
+         * 可以共享的最大响应体，超过时等待者自己访问后端
+         */
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+        /**
+         * 除租户外还参与判断"相同请求"的请求头
+         */
+        private List<String> headers = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE);
+        /**
+         * 读取租户 ID 的请求头
+         */
+        private String tenantHeader = "X-Tenant-ID";
+    }
+}
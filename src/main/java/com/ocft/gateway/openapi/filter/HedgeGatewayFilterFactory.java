@@ -0,0 +1,88 @@
+package com.ocft.gateway.openapi.filter;
+
+import com.ocft.gateway.openapi.filter.global.HedgingRoutingGlobalFilter;
+import com.ocft.gateway.openapi.hedge.HedgePolicy;
+import com.ocft.gateway.openapi.hedge.HedgeRegistry;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 对冲请求 (hedged requests)：首个请求在路由的 p{@code percentile} 首字节时间内还没有响应时，
+ * 向另一个 L2 网关实例再发一个相同的请求，先返回响应头的一方胜出，另一方被取消。
+ * <p>
+ * 只对不带请求体的 GET/HEAD/OPTIONS 请求生效，并且只应该加在幂等的路由上。对冲的数量受预算限制，
+ * 不超过该路由流量的 {@code budgetPercent}%。转发由 {@link HedgingRoutingGlobalFilter} 完成，这个过滤器只负责开启。
+ * <p>
+ * 在配置文件或管理后台中引用时，使用 'Hedge'，例如 {@code Hedge=95,10,20ms}。
+ */
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    private static final Set<HttpMethod> HEDGEABLE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private final HedgeRegistry hedgeRegistry;
+
+    public HedgeGatewayFilterFactory(HedgeRegistry hedgeRegistry) {
+        super(Config.class);
+        this.hedgeRegistry = hedgeRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("percentile", "budgetPercent", "minDelay");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "";
+        HedgePolicy policy = hedgeRegistry.policy(routeId, config.getPercentile(), config.getMinDelay(), config.getBudgetPercent());
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (HEDGEABLE_METHODS.contains(request.getMethod()) && !hasBody(request.getHeaders())) {
+                exchange.getAttributes().put(HedgingRoutingGlobalFilter.HEDGE_POLICY_ATTR, policy);
+            }
+            return chain.filter(exchange);
+        };
+    }
+
+    /**
+     * 请求体无法重放，带请求体的请求不对冲
+     */
+    private static boolean hasBody(HttpHeaders headers) {
+        return headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    /**
+     * 配置类，用于接收来自路由定义的参数。
+     * 字段名必须与路由定义中 'args' 的键名匹配。
+     */
+    @Data
+    public static class Config implements HasRouteId {
+        /**
+         * 等待时间取上游首字节时间的这个分位
+         */
+        private double percentile = 95;
+        /**
+         * 对冲请求最多占路由流量的百分比
+         */
+        private double budgetPercent = 10;
+        /**
+         * 等待时间的下限，避免在很快的路由上频繁对冲
+         */
+        private Duration minDelay = Duration.ofMillis(5);
+        /**
+         * 由网关在构建路由时设置
+         */
+        private String routeId;
+    }
+}
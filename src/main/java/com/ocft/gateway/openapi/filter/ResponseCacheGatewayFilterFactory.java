@@ -0,0 +1,243 @@
+package com.ocft.gateway.openapi.filter;
+
+import com.ocft.gateway.openapi.cache.CacheDirectives;
+import com.ocft.gateway.openapi.cache.CachedBodyBuilder;
+import com.ocft.gateway.openapi.cache.CachedResponse;
+import com.ocft.gateway.openapi.cache.ResponseCacheStore;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 按路由开启的响应缓存，缓存内容保存在 {@link ResponseCacheStore} 中，命中时直接由网关返回，不再访问后端。
+ * <p>
+ * 只缓存不带 Authorization 的 GET 请求的 200 响应，遵循共享缓存的语义：
+ * <ul>
+ *     <li>响应的 {@code Cache-Control: no-store / no-cache / private} 或带 Set-Cookie 时不缓存，
+ *     有效期取 s-maxage 或 max-age，都没有时使用路由配置的 {@code timeToLive}</li>
+ *     <li>请求的 {@code Cache-Control: no-cache} 跳过缓存读取，{@code no-store} 完全绕过缓存</li>
+ *     <li>按 {@code Vary} 中的请求头分别缓存，{@code Vary: *} 不缓存</li>
+ *     <li>请求的 {@code If-None-Match} 与缓存的 ETag 匹配时直接返回 304</li>
+ * </ul>
+ * 超过 {@code maxEntrySize} 的响应不缓存。缓存键由路由 ID、请求 URI 和租户 ID ({@code tenantHeader}) 组成，
+ * 不同租户即使请求同一个 URI 也会被转发到不同的单元，不能共享缓存。
+ * <p>
+ * 过滤器的顺序固定在 {@link NettyWriteResponseFilter} 之前，这样它替换的响应装饰器才能被写出响应的过滤器使用；
+ * 命中的请求因此也不会经过顺序更靠后的路由过滤器 (例如限流)。
+ * <p>
+ * 在配置文件或管理后台中引用时，使用 'ResponseCache'，例如 {@code ResponseCache=5m,512KB}。
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final ResponseCacheStore store;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store) {
+        super(Config.class);
+        this.store = store;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("timeToLive", "maxEntrySize");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Duration defaultTtl = config.getTimeToLive();
+        int maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, config.getMaxEntrySize().toBytes());
+        String tenantHeader = config.getTenantHeader();
+        // 普通的路由过滤器排在 NettyWriteResponseFilter 之后，替换的响应在写出时已经不会被使用，什么也缓存不到
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            CacheDirectives requestDirectives = CacheDirectives.of(request.getHeaders());
+            if (request.getMethod() != HttpMethod.GET || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                    || requestDirectives.noStore()) {
+                store.recordBypassed();
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String tenantId = request.getHeaders().getFirst(tenantHeader);
+            String key = (route != null ? route.getId() : "") + ' ' + request.getURI() + '\n' + (tenantId != null ? tenantId : "");
+            if (!requestDirectives.noCache()) {
+                CachedResponse cached = store.lookup(key, request.getHeaders());
+                if (cached != null) {
+                    return serve(exchange, cached);
+                }
+            }
+            CachingResponseDecorator decorator = new CachingResponseDecorator(exchange, key, defaultTtl, maxEntryBytes);
+            return chain.filter(exchange.mutate().response(decorator).build());
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.addAll(cached.headers());
+        headers.set(HttpHeaders.AGE, String.valueOf(Math.max(0, (System.currentTimeMillis() - cached.storedAtMillis()) / 1000)));
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        if (matchesEtag(exchange.getRequest().getHeaders().get(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            store.recordNotModified();
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().remaining());
+        // 所有命中共享同一块只读内存，这里只包装，不复制
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body().duplicate())));
+    }
+
+    private static boolean matchesEtag(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String target = weakless(etag);
+        for (String value : ifNoneMatch) {
+            for (String candidate : value.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*") || weakless(trimmed).equals(target)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match 使用弱比较
+     */
+    private static String weakless(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * 在写出响应时决定是否缓存：此时响应头已经确定，不可缓存的响应直接透传，不做任何复制
+     */
+    private final class CachingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Duration defaultTtl;
+        private final int maxEntryBytes;
+
+        CachingResponseDecorator(ServerWebExchange exchange, String key, Duration defaultTtl, int maxEntryBytes) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.defaultTtl = defaultTtl;
+            this.maxEntryBytes = maxEntryBytes;
+        }
+
+        @NonNull
+        @Override
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            Duration ttl = cacheTtl(getStatusCode(), headers);
+            List<String> vary = ttl != null ? vary(headers) : null;
+            long contentLength = headers.getContentLength();
+            headers.set(CACHE_STATUS_HEADER, "MISS");
+            if (ttl == null || vary == null || contentLength > maxEntryBytes) {
+                store.recordUncacheable();
+                return super.writeWith(body);
+            }
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders storedHeaders = ResponseCacheStore.storableHeaders(headers);
+            HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+            CachedBodyBuilder builder = new CachedBodyBuilder(maxEntryBytes, contentLength);
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(builder::append)
+                    .doOnComplete(() -> {
+                        if (builder.isOverflow()) {
+                            store.recordUncacheable();
+                            return;
+                        }
+                        store.store(key, requestHeaders, vary, new CachedResponse(status, storedHeaders,
+                                builder.build(store.isOffHeap()), System.currentTimeMillis(), ttl.toNanos()));
+                    }));
+        }
+
+        @NonNull
+        @Override
+        public Mono<Void> writeAndFlushWith(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(p -> p));
+        }
+
+        private Duration cacheTtl(HttpStatusCode status, HttpHeaders headers) {
+            if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                return null;
+            }
+            return CacheDirectives.of(headers).sharedTtl(defaultTtl);
+        }
+
+        /**
+         * @return Vary 中的请求头名称 (小写)；{@code Vary: *} 时返回 null
+         */
+        private List<String> vary(HttpHeaders headers) {
+            List<String> values = headers.get(HttpHeaders.VARY);
+            if (values == null || values.isEmpty()) {
+                return List.of();
+            }
+            List<String> names = new ArrayList<>();
+            for (String value : values) {
+                for (String name : value.split(",")) {
+                    String trimmed = name.trim().toLowerCase(Locale.ROOT);
+                    if (trimmed.equals("*")) {
+                        return null;
+                    }
+                    if (!trimmed.isEmpty() && !names.contains(trimmed)) {
+                        names.add(trimmed);
+                    }
+                }
+            }
+            names.sort(null);
+            return names;
+        }
+    }
+
+    /**
+     * 配置类，用于接收来自路由定义的参数。
+     * 字段名必须与路由定义中 'args' 的键名匹配。
+     */
+    @Data
+    public static class Config {
+        /**
+         * 响应没有给出 max-age / s-maxage 时的有效期
+         */
+        private Duration timeToLive = Duration.ofMinutes(1);
+        /**
+         * 单个响应体的最大缓存大小，超过的响应不缓存
+         */
+        private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+        /**
+         * 读取租户 ID 的请求头，租户 ID 是缓存键的一部分
+         */
+        private String tenantHeader = "X-Tenant-ID";
+    }
+}
@@ -0,0 +1,47 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一次请求体或响应体的捕获，最多保存 {@code maxBytes} 个字节。
+ * <p>
+ * 数据块按绝对位置复制到预先分配的数组中，不改变 DataBuffer 的读位置，下游照常写出；
+ * 达到上限之后的数据块只累加长度，不做任何复制。
+ */
+final class BodyCapture {
+
+    private final byte[] bytes;
+    private final ByteBuffer target;
+    private int captured;
+    private long total;
+
+    BodyCapture(int maxBytes) {
+        this.bytes = new byte[maxBytes];
+        this.target = ByteBuffer.wrap(bytes);
+    }
+
+    void append(DataBuffer dataBuffer) {
+        int readable = dataBuffer.readableByteCount();
+        int length = Math.min(readable, bytes.length - captured);
+        if (length > 0) {
+            dataBuffer.toByteBuffer(dataBuffer.readPosition(), target, captured, length);
+            captured += length;
+        }
+        total += readable;
+    }
+
+    boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * 截断时在末尾追加标记和响应体的实际长度。按字节截断可能切开一个多字节字符，解码时会被替换为 U+FFFD
+     */
+    String body() {
+        String body = new String(bytes, 0, captured, StandardCharsets.UTF_8);
+        return total > captured ? body + "...[truncated, " + total + " bytes total]" : body;
+    }
+}
@@ -1,6 +1,9 @@
 package com.ocft.gateway.openapi.filter.global;
 
-import lombok.extern.slf4j.Slf4j;
+import com.ocft.gateway.openapi.accesslog.AccessLogEvent;
+import com.ocft.gateway.openapi.accesslog.AccessLogWriter;
+import com.ocft.gateway.openapi.filter.CaptureResponseBodyGatewayFilterFactory;
+import lombok.RequiredArgsConstructor;
 import org.reactivestreams.Publisher;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
@@ -8,7 +11,6 @@ import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
@@ -17,24 +19,24 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 
 /**
  * 一个全局过滤器，用于记录通过网关的每一个请求的最终转发目的地。
  * 这为调试和监控路由行为提供了至关重要的可观测性。
+ * 日志通过 {@link AccessLogWriter} 异步写出，见 {@code access-log} logger。
  */
-@Slf4j
 @Component
+@RequiredArgsConstructor
 public class FinalRequestLoggerGlobalFilter implements GlobalFilter, Ordered {
 
+    private final AccessLogWriter accessLogWriter;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         long startTime = System.currentTimeMillis();
 
-        // 使用 StringBuilder 来安全地捕获响应体
-        StringBuilder responseBodyCapture = new StringBuilder();
-        ServerHttpResponseDecorator decoratedResponse = getServerHttpResponseDecorator(exchange, responseBodyCapture);
+        // 响应体只在路由配置了 CaptureResponseBody 且本次请求被采样时才会捕获
+        CapturingResponseDecorator decoratedResponse = new CapturingResponseDecorator(exchange);
 
         // 使用装饰后的 response 创建一个新的 exchange，并继续过滤器链
         return chain.filter(exchange.mutate().response(decoratedResponse).build())
@@ -45,49 +47,52 @@ public class FinalRequestLoggerGlobalFilter implements GlobalFilter, Ordered {
                     // 从 exchange 的属性中获取最终被路由的 URI
                     // 这个属性是由路由过滤器设置的
                     URI routedUri = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
-                    URI originalUri = exchange.getRequest().getURI();
                     HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
-                    String responseBody = responseBodyCapture.toString();
-
-                    // 记录摘要日志 (INFO级别)
-                    log.info(
-                            "Original URI: [{}], Routed To: [{}], Status: [{}], Duration: [{}ms]",
-                            originalUri,
-                            (routedUri != null) ? routedUri : "N/A (No Route Found)",
-                            (statusCode != null) ? statusCode.value() : "N/A",
-                            duration
-                    );
 
-                    // 使用 DEBUG 级别记录详细的响应体，避免在生产环境中因日志过多影响性能
-                    if (!responseBody.isEmpty()) {
-                        log.info("RESP:BODY: {}", responseBody.replaceAll("[\r\n\t]", ""));
-                    }
+                    // 只把原始值放进异步管道，格式化和写出都在 access-log-writer 线程上完成，不占用事件循环
+                    accessLogWriter.publish(new AccessLogEvent(
+                            startTime,
+                            exchange.getRequest().getMethod().name(),
+                            exchange.getRequest().getURI(),
+                            routedUri,
+                            (statusCode != null) ? statusCode.value() : 0,
+                            duration,
+                            decoratedResponse.capturedBody()
+                    ));
                 });
     }
 
-    private static ServerHttpResponseDecorator getServerHttpResponseDecorator(ServerWebExchange exchange, StringBuilder responseBodyCapture) {
-        ServerHttpResponse originalResponse = exchange.getResponse();
+    /**
+     * 装饰原始的 response，以便我们可以"窥探"响应体。
+     * 是否捕获在写出响应时才决定：此时路由过滤器已经执行完，捕获策略和响应的 Content-Type 都已确定
+     */
+    private static final class CapturingResponseDecorator extends ServerHttpResponseDecorator {
 
-        // 装饰原始的 response，以便我们可以"窥探"响应体
-        // 将响应体（body）包装成一个 Flux，以便我们可以使用响应式操作符
-        // 在每个数据块（DataBuffer）流过时，将其内容解码并附加到 StringBuilder
-        // asByteBuffer() 方法可以安全地读取内容而不消耗它，因此下游消费者仍然可以读取
-        return new ServerHttpResponseDecorator(originalResponse) {
+        private final ServerWebExchange exchange;
+        private BodyCapture capture;
 
-            @NonNull
-            public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
-                // 将响应体（body）包装成一个 Flux，以便我们可以使用响应式操作符
-                Flux<? extends DataBuffer> fluxBody = Flux.from(body);
-                return super.writeWith(fluxBody.doOnNext(dataBuffer -> {
-                    // 在每个数据块（DataBuffer）流过时，将其内容解码并附加到 StringBuilder
-                    // 使用 asByteBuffer() 可以安全地读取内容而不消耗它，因此下游消费者仍然可以读取
-                    int len = dataBuffer.readableByteCount();
-                    ByteBuffer result = ByteBuffer.allocate(len);
-                    dataBuffer.toByteBuffer(result);
-                    responseBodyCapture.append(StandardCharsets.UTF_8.decode(result));
-                }));
+        CapturingResponseDecorator(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @NonNull
+        @Override
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            CaptureResponseBodyGatewayFilterFactory.Policy policy =
+                    exchange.getAttribute(CaptureResponseBodyGatewayFilterFactory.CAPTURE_POLICY_ATTR);
+            if (policy == null || !policy.accepts(getHeaders().getContentType())) {
+                return super.writeWith(body);
             }
-        };
+            BodyCapture bodyCapture = new BodyCapture(policy.maxBytes());
+            this.capture = bodyCapture;
+            // 在每个数据块（DataBuffer）流过时复制其中未超出上限的部分，不消耗数据块，下游消费者仍然可以读取
+            return super.writeWith(Flux.from(body).doOnNext(bodyCapture::append));
+        }
+
+        String capturedBody() {
+            return capture != null ? capture.body() : null;
+        }
     }
 
     @Override
@@ -0,0 +1,260 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import com.ocft.gateway.openapi.hedge.HedgePolicy;
+import com.ocft.gateway.openapi.unit.UnitConnectionPools;
+import com.ocft.gateway.openapi.unit.UnitGatewayRegistry;
+import com.ocft.gateway.openapi.unit.UnitInstance;
+import com.ocft.gateway.openapi.unit.UnitSelectionGatewayFilterFactory;
+import com.ocft.gateway.openapi.unit.UnitTarget;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 执行对冲请求的路由过滤器，只处理带有 {@link #HEDGE_POLICY_ATTR} 的请求 (由 Hedge 路由过滤器设置)，其余请求交给 NettyRoutingFilter。
+ * <p>
+ * 它排在 NettyRoutingFilter 之前，此时转发地址已经确定 (包括 lb:// 的解析)。首个请求发往该地址；
+ * 等待 {@link HedgePolicy} 给出的时间后仍没有响应头 (或者首个请求在此之前就失败了)、且预算允许时，
+ * 再向单元中的另一个 L2 网关实例发出同样的请求。单元只有一个实例或者请求不是经 UnitSelection 转发的，
+ * 对冲请求仍发往同一地址，由 L2 前面的负载均衡选择实例。先成功收到响应头的一方胜出，另一方被取消 (连接被关闭)；
+ * 一方失败时等待另一方，两方都失败时返回首个请求的错误。
+ * <p>
+ * 与 NettyRoutingFilter 一样，路由元数据中的 {@code response-timeout} 和 {@code connect-timeout} 优先于全局配置。
+ * 延迟分布只记录首个请求的首字节时间，不记录胜出者的。
+ * <p>
+ * 请求和响应头经过与 NettyRoutingFilter 相同的 {@link HttpHeadersFilter}。发往 L2 网关实例的请求使用该实例的连接池
+ * ({@link UnitConnectionPools})，其余请求使用网关默认的 HttpClient。
+ */
+@Component
+public class HedgingRoutingGlobalFilter implements GlobalFilter, Ordered {
+
+    public static final String HEDGE_POLICY_ATTR = HedgingRoutingGlobalFilter.class.getName() + ".hedgePolicy";
+
+    private final HttpClient httpClient;
+    private final WebClient webClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final UnitGatewayRegistry unitRegistry;
+    private final UnitConnectionPools connectionPools;
+    private final Duration defaultResponseTimeout;
+
+    public HedgingRoutingGlobalFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                      UnitGatewayRegistry unitRegistry, UnitConnectionPools connectionPools,
+                                      HttpClientProperties properties) {
+        this.httpClient = httpClient;
+        this.webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+        this.headersFilters = headersFilters;
+        this.unitRegistry = unitRegistry;
+        this.connectionPools = connectionPools;
+        this.defaultResponseTimeout = properties.getResponseTimeout();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HedgePolicy policy = exchange.getAttribute(HEDGE_POLICY_ATTR);
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (policy == null || requestUrl == null || ServerWebExchangeUtils.isAlreadyRouted(exchange)
+                || !("http".equals(requestUrl.getScheme()) || "https".equals(requestUrl.getScheme()))) {
+            return chain.filter(exchange);
+        }
+        long startNanos = System.nanoTime();
+        long delayNanos = policy.admit();
+        if (delayNanos < 0) {
+            // 还没有足够的延迟样本，正常转发并记录首字节时间
+            return chain.filter(exchange).doOnSuccess(v -> policy.recordLatency(System.nanoTime() - startNanos));
+        }
+        ServerWebExchangeUtils.setAlreadyRouted(exchange);
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Duration responseTimeout = responseTimeout(route);
+        Integer connectTimeout = connectTimeout(route);
+        HttpMethod method = exchange.getRequest().getMethod();
+        HttpHeaders headers = upstreamHeaders(exchange);
+        UnitInstance instance = exchange.getAttribute(UnitSelectionGatewayFilterFactory.UNIT_INSTANCE_ATTR);
+        UnitInstance alternate = alternate(exchange, instance);
+        URI hedgeUrl = alternate != null ? hedgeUrl(requestUrl, alternate) : requestUrl;
+        UnitInstance hedgeInstance = alternate != null ? alternate : instance;
+
+        AtomicReference<Throwable> primaryError = new AtomicReference<>();
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+        Mono<Attempt> primary = send(client(instance, connectTimeout), method, requestUrl, headers, false)
+                // 延迟分布只统计首个请求：用胜出者的延迟会让分位数偏低，对冲越多等待时间越短
+                .doOnNext(attempt -> policy.recordLatency(System.nanoTime() - startNanos))
+                .doOnCancel(() -> {
+                    // 输给对冲请求时首个请求的延迟至少是已经等待的时间，这个时间不短于对冲等待时间，仍落在分位数的正确一侧。
+                    // 已经失败的首个请求在对冲请求胜出时也会收到取消信号，它没有延迟样本
+                    if (hedgeSent.get() && primaryError.get() == null) {
+                        policy.recordLatency(System.nanoTime() - startNanos);
+                    }
+                })
+                .doOnError(error -> {
+                    primaryError.set(error);
+                    primaryFailed.tryEmitEmpty();
+                });
+        // 等待时间到了，或者首个请求在此之前就失败了，才发出对冲请求；预算用完时不发
+        Mono<Attempt> hedge = Mono.firstWithSignal(Mono.delay(Duration.ofNanos(delayNanos)).then(), primaryFailed.asMono())
+                .then(Mono.defer(() -> {
+                    if (!policy.tryHedge()) {
+                        return Mono.empty();
+                    }
+                    hedgeSent.set(true);
+                    return send(client(hedgeInstance, connectTimeout), method, hedgeUrl, headers, true);
+                }));
+        // 先拿到响应的一方胜出，另一方被取消；一方失败时继续等另一方，两方都失败时返回首个请求的错误
+        Mono<Attempt> race = Mono.firstWithValue(primary, hedge)
+                .onErrorMap(NoSuchElementException.class, error -> primaryError.get() != null ? primaryError.get() : error);
+        if (responseTimeout != null) {
+            race = race.timeout(responseTimeout, Mono.<Attempt>error(() ->
+                    new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Response took longer than timeout: " + responseTimeout)));
+        }
+        return race.flatMap(attempt -> {
+            if (attempt.hedged()) {
+                policy.recordHedgeWin();
+            }
+            return write(exchange, attempt.response());
+        });
+    }
+
+    /**
+     * 与 NettyRoutingFilter 相同：路由元数据中的 response-timeout (毫秒) 优先，负数表示不限制
+     */
+    private Duration responseTimeout(Route route) {
+        Long timeout = route != null ? toLong(route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR)) : null;
+        if (timeout == null) {
+            return defaultResponseTimeout;
+        }
+        return timeout >= 0 ? Duration.ofMillis(timeout) : null;
+    }
+
+    /**
+     * 路由元数据中的 connect-timeout (毫秒)；没有时使用 HttpClient 上配置的连接超时
+     */
+    private static Integer connectTimeout(Route route) {
+        Long timeout = route != null ? toLong(route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR)) : null;
+        return timeout != null ? Math.toIntExact(timeout) : null;
+    }
+
+    /**
+     * 元数据可能来自 YAML (数字) 或数据库中的 JSON (字符串)
+     */
+    private static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            return Long.parseLong(text.trim());
+        }
+        return null;
+    }
+
+    private WebClient client(UnitInstance instance, Integer connectTimeout) {
+        // 实例在请求途中被移出注册表时连接池已经关闭 (返回 null)，改用默认的 HttpClient
+        if (connectTimeout == null) {
+            WebClient client = instance != null ? connectionPools.webClient(instance) : null;
+            return client != null ? client : webClient;
+        }
+        // 只有路由单独配置了连接超时时才为这个请求创建 WebClient，连接池仍然是共享的
+        HttpClient client = instance != null ? connectionPools.httpClient(instance) : null;
+        if (client == null) {
+            client = httpClient;
+        }
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)))
+                .build();
+    }
+
+    private Mono<Attempt> send(WebClient client, HttpMethod method, URI url, HttpHeaders headers, boolean hedged) {
+        return client.method(method)
+                .uri(url)
+                .headers(requestHeaders -> requestHeaders.addAll(headers))
+                .retrieve()
+                // 上游的错误状态码原样返回给客户端，不作为异常处理
+                .onStatus(status -> true, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .map(response -> new Attempt(response, hedged));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<Flux<DataBuffer>> upstream) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(upstream.getStatusCode());
+        response.getHeaders().addAll(HttpHeadersFilter.filter(headersFilters.getIfAvailable(), upstream.getHeaders(),
+                exchange, HttpHeadersFilter.Type.RESPONSE));
+        Flux<DataBuffer> body = upstream.getBody();
+        return body != null ? response.writeWith(body) : response.setComplete();
+    }
+
+    private HttpHeaders upstreamHeaders(ServerWebExchange exchange) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(), exchange));
+        // 与 NettyRoutingFilter 一致：默认使用目标地址的 Host，路由要求保留时使用原始 Host
+        headers.remove(HttpHeaders.HOST);
+        if (Boolean.TRUE.equals(exchange.getAttribute(ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE))) {
+            String host = exchange.getRequest().getHeaders().getFirst(HttpHeaders.HOST);
+            if (host != null) {
+                headers.set(HttpHeaders.HOST, host);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * 经 UnitSelection 转发的请求，对冲请求发往单元中的下一个 L2 网关实例
+     * @return 单元只有一个实例或请求不是经 UnitSelection 转发的时返回 null
+     */
+    private UnitInstance alternate(ServerWebExchange exchange, UnitInstance instance) {
+        String unit = exchange.getAttribute(UnitSelectionGatewayFilterFactory.UNIT_ATTR);
+        UnitTarget target = unit != null && instance != null ? unitRegistry.lookup(unit) : null;
+        return target != null ? target.alternate(instance) : null;
+    }
+
+    /**
+     * 地址中只替换 scheme/host/port，与 RouteToRequestUrlFilter 相同
+     */
+    private static URI hedgeUrl(URI requestUrl, UnitInstance alternate) {
+        URI alternateUri = alternate.getGatewayUri();
+        return UriComponentsBuilder.fromUri(requestUrl)
+                .scheme(alternateUri.getScheme())
+                .host(alternateUri.getHost())
+                .port(alternateUri.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    private record Attempt(ResponseEntity<Flux<DataBuffer>> response, boolean hedged) {
+    }
+}
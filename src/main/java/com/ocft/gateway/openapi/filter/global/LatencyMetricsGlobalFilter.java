@@ -0,0 +1,46 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import com.ocft.gateway.openapi.metrics.LatencyRecorder;
+import com.ocft.gateway.openapi.metrics.LatencyTimer;
+import com.ocft.gateway.openapi.unit.UnitSelectionGatewayFilterFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 一个全局过滤器，按路由和单元记录请求延迟，见 {@link LatencyRecorder}。
+ * 它紧贴在 FinalRequestLoggerGlobalFilter 之内，包裹整个请求生命周期；上游耗时由 {@link UpstreamTimingGlobalFilter} 测量。
+ */
+@Component
+@RequiredArgsConstructor
+public class LatencyMetricsGlobalFilter implements GlobalFilter, Ordered {
+
+    private final LatencyRecorder latencyRecorder;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        LatencyTimer timer = new LatencyTimer();
+        exchange.getAttributes().put(LatencyTimer.LATENCY_TIMER_ATTR, timer);
+        // 在过滤器链开始前取路由 ID：UnitSelection 之类的过滤器稍后会把路由替换为动态路由
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+
+        return chain.filter(exchange)
+                .doFinally(signalType -> latencyRecorder.record(
+                        routeId,
+                        exchange.getAttribute(UnitSelectionGatewayFilterFactory.UNIT_ATTR),
+                        System.nanoTime() - timer.getStartNanos(),
+                        timer.getUpstreamNanos()));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
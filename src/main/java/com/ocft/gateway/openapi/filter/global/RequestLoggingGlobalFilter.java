@@ -1,30 +1,42 @@
 package com.ocft.gateway.openapi.filter.global;
 
+import com.ocft.gateway.openapi.filter.BufferRequestBodyGatewayFilterFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
-import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
-import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-
 /**
  * 一个全局过滤器，用于记录所有进入网关的请求。
  * 它会记录请求方法、路径、查询参数，以及POST/PUT等请求的请求体。
  * 它实现了 GlobalFilter 接口，因此会自动应用于所有路由。
+ * <p>
+ * 请求体以"旁路"(tee) 的方式记录：数据块在被转发给上游的同时复制前 {@code gateway.request-log.max-body-bytes} 个字节，
+ * 请求体流结束后输出一条日志。请求体不会在网关中整体缓存，上游可以立即收到第一个字节。
+ * 确实需要完整请求体的路由可以配置 {@link BufferRequestBodyGatewayFilterFactory}，此时由它负责缓存和记录。
  */
 @Slf4j
 @Component
 public class RequestLoggingGlobalFilter implements GlobalFilter, Ordered {
 
+    private final int maxBodyBytes;
+
+    public RequestLoggingGlobalFilter(@Value("${gateway.request-log.max-body-bytes:4096}") int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
@@ -35,29 +47,9 @@ public class RequestLoggingGlobalFilter implements GlobalFilter, Ordered {
         if (!hasBody || !CollectionUtils.isEmpty(queryParams)) {
             log.info("=> {} {} REQ::PARAM: {}", method, request.getURI().getPath(), request.getQueryParams());
         }
-        // 2. 如果请求包含请求体，则额外记录请求体
-        if (hasBody) {
-            return ServerWebExchangeUtils.cacheRequestBody(exchange, (serverHttpRequest) -> {
-                Mono<String> cachedBody = serverHttpRequest.getBody()
-                        .map(dataBuffer -> {
-                            byte[] bytes = new byte[dataBuffer.readableByteCount()];
-                            dataBuffer.read(bytes);
-                            DataBufferUtils.release(dataBuffer);
-                            return new String(bytes, StandardCharsets.UTF_8);
-                        })
-                        .collectList()
-                        .map(list -> String.join("", list))
-                        .defaultIfEmpty("");
-
-                return cachedBody.flatMap(body -> {
-                    if (!body.isEmpty()) {
-                        // 使用 DEBUG 级别记录请求体，避免在生产环境中产生过多日志
-                        log.info("REQ::BODY: {}", body.replaceAll("[\r\n\t]", ""));
-                    }
-                    // 将包含了缓存请求体的 request 重新构建到 exchange 中，并继续过滤器链
-                    return chain.filter(exchange.mutate().request(serverHttpRequest).build());
-                });
-            });
+        // 2. 如果请求包含请求体，则在请求体流过时记录它
+        if (hasBody && maxBodyBytes > 0 && log.isInfoEnabled()) {
+            return chain.filter(exchange.mutate().request(new TeeRequestDecorator(exchange, maxBodyBytes)).build());
         }
 
         // 3. 对于没有请求体的请求 (GET, DELETE 等)，直接继续过滤器链
@@ -70,4 +62,36 @@ public class RequestLoggingGlobalFilter implements GlobalFilter, Ordered {
         // 例如，-1 会让它在大多数默认过滤器之后，但在路由过滤器之前运行
         return -1;
     }
+
+    /**
+     * 请求体被订阅 (通常是路由过滤器转发给上游) 时才开始复制，数据块本身原样向下游传递
+     */
+    private static final class TeeRequestDecorator extends ServerHttpRequestDecorator {
+
+        private final ServerWebExchange exchange;
+        private final int maxBodyBytes;
+
+        TeeRequestDecorator(ServerWebExchange exchange, int maxBodyBytes) {
+            super(exchange.getRequest());
+            this.exchange = exchange;
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @NonNull
+        @Override
+        public Flux<DataBuffer> getBody() {
+            if (exchange.getAttributes().containsKey(BufferRequestBodyGatewayFilterFactory.BUFFERED_REQUEST_BODY_ATTR)) {
+                // 路由要求缓存完整请求体，由 BufferRequestBody 过滤器记录
+                return super.getBody();
+            }
+            BodyCapture capture = new BodyCapture(maxBodyBytes);
+            return super.getBody()
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        if (!capture.isEmpty()) {
+                            log.info("REQ::BODY: {}", capture.body().replaceAll("[\r\n\t]", ""));
+                        }
+                    });
+        }
+    }
 }
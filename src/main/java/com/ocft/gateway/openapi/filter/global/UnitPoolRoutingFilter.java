@@ -0,0 +1,51 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import com.ocft.gateway.openapi.unit.UnitConnectionPools;
+import com.ocft.gateway.openapi.unit.UnitInstance;
+import com.ocft.gateway.openapi.unit.UnitSelectionGatewayFilterFactory;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * 替代默认的 NettyRoutingFilter (通过 {@code spring.cloud.gateway.global-filter.netty-routing.enabled=false} 关闭)：
+ * 经 UnitSelection 转发的请求使用目标 L2 网关实例自己的连接池 ({@link UnitConnectionPools})，其余请求仍使用网关默认的 HttpClient。
+ * 转发、请求/响应头处理和超时与 NettyRoutingFilter 完全相同，只替换了 HttpClient 的选择。
+ */
+@Component
+public class UnitPoolRoutingFilter extends NettyRoutingFilter {
+
+    private final UnitConnectionPools connectionPools;
+
+    public UnitPoolRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                 HttpClientProperties properties, UnitConnectionPools connectionPools) {
+        super(httpClient, headersFilters, properties);
+        this.connectionPools = connectionPools;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        UnitInstance instance = exchange.getAttribute(UnitSelectionGatewayFilterFactory.UNIT_INSTANCE_ATTR);
+        // 实例在请求途中被移出注册表时，连接池已经关闭，改用默认的 HttpClient
+        HttpClient client = instance != null ? connectionPools.httpClient(instance) : null;
+        if (client == null) {
+            return super.getHttpClient(route, exchange);
+        }
+        // 与 NettyRoutingFilter 相同：路由元数据中的 connect-timeout 优先
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            int millis = connectTimeout instanceof Number number ? number.intValue() : Integer.parseInt(connectTimeout.toString().trim());
+            return client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, millis);
+        }
+        return client;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import com.ocft.gateway.openapi.metrics.LatencyTimer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 一个全局过滤器，测量上游耗时。
+ * 它排在路由过滤器 (NettyRoutingFilter 等，order 为 LOWEST_PRECEDENCE；HedgingRoutingGlobalFilter 为 LOWEST_PRECEDENCE - 1) 之前的最后一位，
+ * 路由过滤器在收到上游响应头后完成，因此测得的是上游的首字节时间 (对冲时为胜出一方的首字节时间)。
+ */
+@Component
+public class UpstreamTimingGlobalFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        LatencyTimer timer = exchange.getAttribute(LatencyTimer.LATENCY_TIMER_ATTR);
+        if (timer == null) {
+            return chain.filter(exchange);
+        }
+        timer.upstreamStarted();
+        return chain.filter(exchange).doFinally(signalType -> timer.upstreamFinished());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 2;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ocft.gateway.openapi.hedge;
+
+import com.ocft.gateway.openapi.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一条路由的对冲策略：何时发出对冲请求，以及还能发出多少。
+ * <p>
+ * 等待时间取上一个统计窗口中上游首字节时间的给定分位 (例如 p95)，不低于 {@code minDelay}；
+ * 窗口内样本不足 {@value #MIN_WINDOW_SAMPLES} 个时沿用之前的等待时间，从未有过足够样本时不对冲。
+ * <p>
+ * 对冲预算按请求累积：每个请求存入 {@code budgetPercent}% 次对冲的额度，每次对冲花掉一次，最多攒下
+ * {@value #MAX_BALANCE} 次。下游过载时所有请求都变慢，对冲数量也不会超过流量的这个比例，不会把过载放大。
+ */
+public final class HedgePolicy {
+
+    static final long MIN_WINDOW_SAMPLES = 20;
+    static final long MAX_BALANCE = 10;
+
+    /**
+     * 额度以千分之一次对冲为单位
+     */
+    private static final long UNIT = 1000;
+
+    private final long windowNanos;
+
+    private volatile double quantile;
+    private volatile long minDelayNanos;
+    private volatile long deposit;
+
+    private volatile LatencyHistogram window = new LatencyHistogram();
+    private volatile long windowStartNanos = System.nanoTime();
+    private final AtomicBoolean rotating = new AtomicBoolean();
+    private volatile long delayNanos = -1;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    HedgePolicy(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * 路由定义变化时更新参数，已经统计的延迟和额度保留
+     */
+    void configure(double percentile, Duration minDelay, double budgetPercent) {
+        this.quantile = Math.max(0.5, Math.min(0.999, percentile / 100));
+        this.minDelayNanos = minDelay.toNanos();
+        this.deposit = Math.round(Math.max(0, Math.min(100, budgetPercent)) * UNIT / 100);
+    }
+
+    /**
+     * 每个请求调用一次，存入对冲额度
+     * @return 等待多久 (纳秒) 后发出对冲请求；还没有足够的延迟样本时返回 -1，表示不对冲
+     */
+    public long admit() {
+        requests.increment();
+        long amount = deposit;
+        if (amount > 0 && balance.get() < MAX_BALANCE * UNIT) {
+            balance.accumulateAndGet(amount, (current, add) -> Math.min(MAX_BALANCE * UNIT, current + add));
+        }
+        return delayNanos;
+    }
+
+    /**
+     * 从预算中扣除一次对冲
+     * @return 预算用完时返回 false
+     */
+    public boolean tryHedge() {
+        long current = balance.get();
+        while (current >= UNIT) {
+            if (balance.compareAndSet(current, current - UNIT)) {
+                hedges.increment();
+                return true;
+            }
+            current = balance.get();
+        }
+        budgetExhausted.increment();
+        return false;
+    }
+
+    public void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * 记录一个请求从发出到收到响应头的时间；窗口结束时由一个线程换出直方图并重新计算等待时间
+     */
+    public void recordLatency(long nanos) {
+        window.recordNanos(nanos);
+        long now = System.nanoTime();
+        if (now - windowStartNanos < windowNanos || !rotating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (now - windowStartNanos < windowNanos) {
+                return;
+            }
+            LatencyHistogram finished = window;
+            window = new LatencyHistogram();
+            windowStartNanos = now;
+            long micros = finished.percentileMicros(quantile, MIN_WINDOW_SAMPLES);
+            if (micros >= 0) {
+                delayNanos = Math.max(minDelayNanos, TimeUnit.MICROSECONDS.toNanos(micros));
+            }
+        } finally {
+            rotating.set(false);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        long delay = delayNanos;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("percentile", quantile * 100);
+        snapshot.put("hedgeDelayMs", delay < 0 ? null : delay / 1_000_000.0);
+        snapshot.put("requests", requests.sum());
+        snapshot.put("hedges", hedges.sum());
+        snapshot.put("hedgeWins", hedgeWins.sum());
+        snapshot.put("budgetExhausted", budgetExhausted.sum());
+        snapshot.put("budgetBalance", balance.get() / (double) UNIT);
+        return snapshot;
+    }
+}
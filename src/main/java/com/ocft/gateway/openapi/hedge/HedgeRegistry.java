@@ -0,0 +1,38 @@
+package com.ocft.gateway.openapi.hedge;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按路由 ID 保存 {@link HedgePolicy}。路由刷新时过滤器会重新创建，策略 (延迟统计和预算) 按路由 ID 保留
+ */
+@Component
+public class HedgeRegistry {
+
+    private final long windowNanos;
+    private final Map<String, HedgePolicy> policies = new ConcurrentHashMap<>();
+
+    public HedgeRegistry(@Value("${gateway.hedge.window:10s}") Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public HedgePolicy policy(String routeId, double percentile, Duration minDelay, double budgetPercent) {
+        HedgePolicy policy = policies.computeIfAbsent(routeId, id -> new HedgePolicy(windowNanos));
+        policy.configure(percentile, minDelay, budgetPercent);
+        return policy;
+    }
+
+    /**
+     * 本节点每条开启对冲的路由的等待时间、预算和计数
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        policies.forEach((routeId, policy) -> snapshot.put(routeId, policy.snapshot()));
+        return snapshot;
+    }
+}
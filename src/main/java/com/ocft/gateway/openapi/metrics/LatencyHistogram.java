@@ -0,0 +1,109 @@
+package com.ocft.gateway.openapi.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定内存、无锁的延迟直方图，桶的划分方式与 HdrHistogram 相同 (log-linear)。
+ * <p>
+ * 以微秒为单位：32µs 以下每个值一个桶；之后每个 2 的幂区间再等分为 16 个子桶，相对误差不超过 1/16。
+ * 超过 {@link #MAX_MICROS} (约 134 秒) 的值计入最后一个桶。整个直方图是 384 个计数器，记录一次只是一次原子自增，不分配对象。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+    static final long MAX_MICROS = (1L << 27) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(0, nanos / 1000), MAX_MICROS);
+        counts.incrementAndGet(indexOf(micros));
+        long currentMax = max.get();
+        while (micros > currentMax && !max.compareAndSet(currentMax, micros)) {
+            currentMax = max.get();
+        }
+    }
+
+    public Summary summarize() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long maxMicros = max.get();
+        return new Summary(total,
+                toMillis(percentile(snapshot, total, 0.50, maxMicros)),
+                toMillis(percentile(snapshot, total, 0.99, maxMicros)),
+                toMillis(percentile(snapshot, total, 0.999, maxMicros)),
+                toMillis(maxMicros));
+    }
+
+    /**
+     * 单个分位的延迟，供需要任意分位的调用方使用 (例如对冲请求的等待时间)
+     * @return 微秒；样本数少于 {@code minCount} 时返回 -1
+     */
+    public long percentileMicros(double quantile, long minCount) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0 || total < minCount) {
+            return -1;
+        }
+        return percentile(snapshot, total, quantile, max.get());
+    }
+
+    static int indexOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int mantissa = (int) (micros >>> exponent);
+        return LINEAR_LIMIT + (exponent - 1) * SUB_BUCKET_COUNT + (mantissa - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long mantissa = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << exponent) - 1;
+    }
+
+    private static long percentile(long[] snapshot, long total, double quantile, long maxMicros) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * 延迟摘要，单位为毫秒
+     */
+    public record Summary(long count, double p50, double p99, double p999, double max) {
+    }
+}
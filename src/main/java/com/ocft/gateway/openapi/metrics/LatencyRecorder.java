@@ -0,0 +1,131 @@
+package com.ocft.gateway.openapi.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按路由和按单元统计的延迟直方图。
+ * <p>
+ * 每个路由/单元有三个直方图：总耗时 (total)、上游耗时 (upstream) 和网关自身耗时 (gateway)，见 {@link LatencyTimer}。
+ * 统计按时间窗口进行：每隔 {@code gateway.metrics.latency.window} (为 0 时只能手动重置) 整体换成一个新窗口，
+ * 旧窗口中已删除的路由也随之消失。直方图在一个窗口内第一次被用到时才创建，记录本身不分配对象。
+ */
+@Slf4j
+@Component
+public class LatencyRecorder {
+
+    private final Duration window;
+    private volatile Window current = new Window();
+    private Disposable rotation;
+
+    public LatencyRecorder(@Value("${gateway.metrics.latency.window:5m}") Duration window) {
+        this.window = window;
+    }
+
+    @PostConstruct
+    public void startRotation() {
+        if (window.isZero() || window.isNegative()) {
+            return;
+        }
+        this.rotation = Flux.interval(window, window)
+                .subscribe(tick -> rotate());
+    }
+
+    @PreDestroy
+    public void stopRotation() {
+        if (rotation != null) {
+            rotation.dispose();
+        }
+    }
+
+    /**
+     * @param routeId       匹配到的路由 ID，可以为 null
+     * @param unit          请求被转发到的单元，可以为 null
+     * @param totalNanos    总耗时
+     * @param upstreamNanos 上游耗时，没有访问上游时为负数
+     */
+    public void record(String routeId, String unit, long totalNanos, long upstreamNanos) {
+        Window window = current;
+        if (routeId != null) {
+            window.routes.computeIfAbsent(routeId, key -> new RouteLatency()).record(totalNanos, upstreamNanos);
+        }
+        if (unit != null) {
+            window.units.computeIfAbsent(unit, key -> new RouteLatency()).record(totalNanos, upstreamNanos);
+        }
+    }
+
+    /**
+     * @param reset 是否在读取后开始一个新窗口
+     * @return 当前窗口的统计
+     */
+    public Map<String, Object> snapshot(boolean reset) {
+        Window window = reset ? rotate() : current;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("windowStart", window.startedAt.toString());
+        snapshot.put("windowSeconds", Duration.between(window.startedAt, Instant.now()).toSeconds());
+        snapshot.put("routes", summarize(window.routes));
+        snapshot.put("units", summarize(window.units));
+        return snapshot;
+    }
+
+    /**
+     * 开始一个新窗口
+     * @return 被替换下来的窗口
+     */
+    private Window rotate() {
+        Window previous = current;
+        current = new Window();
+        log.debug("Started a new latency window, previous one began at {}.", previous.startedAt);
+        return previous;
+    }
+
+    private static Map<String, Map<String, LatencyHistogram.Summary>> summarize(Map<String, RouteLatency> latencies) {
+        Map<String, Map<String, LatencyHistogram.Summary>> result = new TreeMap<>();
+        latencies.forEach((key, latency) -> result.put(key, latency.summarize()));
+        return result;
+    }
+
+    private static final class Window {
+
+        private final Instant startedAt = Instant.now();
+        private final Map<String, RouteLatency> routes = new ConcurrentHashMap<>();
+        private final Map<String, RouteLatency> units = new ConcurrentHashMap<>();
+    }
+
+    private static final class RouteLatency {
+
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LatencyHistogram upstream = new LatencyHistogram();
+        private final LatencyHistogram gateway = new LatencyHistogram();
+
+        void record(long totalNanos, long upstreamNanos) {
+            total.recordNanos(totalNanos);
+            if (upstreamNanos >= 0) {
+                upstream.recordNanos(upstreamNanos);
+                gateway.recordNanos(totalNanos - upstreamNanos);
+            } else {
+                gateway.recordNanos(totalNanos);
+            }
+        }
+
+        Map<String, LatencyHistogram.Summary> summarize() {
+            Map<String, LatencyHistogram.Summary> summary = new LinkedHashMap<>();
+            summary.put("total", total.summarize());
+            summary.put("upstream", upstream.summarize());
+            summary.put("gateway", gateway.summarize());
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ocft.gateway.openapi.metrics;
+
+
+/**
+ * 一次请求的计时，保存在 exchange 的 {@link #LATENCY_TIMER_ATTR} 属性中。
+ * <p>
+ * 上游耗时从路由过滤器 (NettyRoutingFilter) 开始执行算起，到收到上游响应头为止；
+ * 网关耗时是总耗时减去上游耗时，包括所有过滤器以及把响应体转发给客户端的时间。
+ */
+public final class LatencyTimer {
+
+    public static final String LATENCY_TIMER_ATTR = LatencyTimer.class.getName() + ".latencyTimer";
+
+    private final long startNanos = System.nanoTime();
+    private long upstreamStartNanos;
+    /**
+     * 没有经过路由过滤器 (例如没有匹配到路由) 时为 -1
+     */
+    private long upstreamNanos = -1;
+
+    public void upstreamStarted() {
+        upstreamStartNanos = System.nanoTime();
+    }
+
+    public void upstreamFinished() {
+        upstreamNanos = System.nanoTime() - upstreamStartNanos;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getUpstreamNanos() {
+        return upstreamNanos;
+    }
+}
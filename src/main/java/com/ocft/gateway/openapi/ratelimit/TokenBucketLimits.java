@@ -0,0 +1,17 @@
+package com.ocft.gateway.openapi.ratelimit;
+
+/**
+ * 一个令牌桶的参数
+ * @param burst     桶容量，即允许的最大突发请求数
+ * @param refill    每秒补充的令牌数
+ * @param leaseSize 每次从 Redis 租借的令牌数，不超过桶容量
+ */
+public record TokenBucketLimits(int burst, double refill, int leaseSize) {
+
+    public TokenBucketLimits {
+        if (burst < 1 || refill <= 0) {
+            throw new IllegalArgumentException("burst must be >= 1 and refill must be > 0");
+        }
+        leaseSize = Math.max(1, Math.min(leaseSize, burst));
+    }
+}
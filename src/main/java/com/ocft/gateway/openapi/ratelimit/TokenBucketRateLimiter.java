@@ -0,0 +1,286 @@
+package com.ocft.gateway.openapi.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分布式令牌桶限流。
+ * <p>
+ * 令牌桶保存在 Redis 中 ({@link #KEY_PREFIX} + 桶名)，但节点不会为每个请求访问 Redis：
+ * 每次从 Redis 批量租借 {@link TokenBucketLimits#leaseSize()} 个令牌放入本地的 {@link TokenLease}，
+ * 绝大多数请求只在内存中扣减。本地令牌用完时，同一个桶的并发请求只会触发一次租借 (single-flight)；
+ * Redis 中的桶已空时，在一小段时间内直接在本地拒绝，不再访问 Redis。
+ * <p>
+ * 租借到的令牌在 {@code gateway.rate-limit.lease-ttl} 后不再在本地使用，避免某个节点长期占用令牌；未用完的令牌会归还给 Redis：
+ * 下一次租借时随租借脚本一起归还，不再有请求的桶由每 {@code gateway.rate-limit.return-interval} 一次的扫描归还。
+ * 归还后桶中的令牌仍不超过容量。
+ * Redis 不可用时放行 (fail open)：本地直接发放一批令牌，并记录错误次数。
+ */
+@Slf4j
+@Component
+public class TokenBucketRateLimiter {
+
+    public static final String KEY_PREFIX = "gateway:rate-limit:";
+
+    /**
+     * 先归还上一次租约未用完的 ARGV[4] 个令牌，按时间补充令牌后，最多发放 ARGV[3] 个令牌，返回实际发放的数量。
+     * 使用 Redis 服务端时间，各节点的时钟偏差不影响补充速度
+     */
+    private static final RedisScript<Long> LEASE_SCRIPT = RedisScript.of(
+            "local capacity = tonumber(ARGV[1]) "
+                    + "local rate = tonumber(ARGV[2]) "
+                    + "local requested = tonumber(ARGV[3]) "
+                    + "local returned = tonumber(ARGV[4]) "
+                    + "local time = redis.call('TIME') "
+                    + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+                    + "local tokens = tonumber(state[1]) "
+                    + "local ts = tonumber(state[2]) "
+                    + "if tokens == nil or ts == nil then tokens = capacity ts = now end "
+                    + "tokens = math.min(capacity, tokens + returned + math.max(0, now - ts) * rate / 1000) "
+                    + "local granted = math.min(requested, math.floor(tokens)) "
+                    + "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'ts', tostring(now)) "
+                    + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) "
+                    + "return granted", Long.class);
+
+    /**
+     * 归还 ARGV[2] 个未用完的令牌，桶中的令牌不超过容量 ARGV[1]。桶已过期 (重新创建时是满的) 时不做任何事
+     */
+    private static final RedisScript<Long> RETURN_SCRIPT = RedisScript.of(
+            "local tokens = tonumber(redis.call('HGET', KEYS[1], 'tokens')) "
+                    + "if tokens == nil then return 0 end "
+                    + "local restored = math.min(tonumber(ARGV[1]), tokens + tonumber(ARGV[2])) "
+                    + "redis.call('HSET', KEYS[1], 'tokens', tostring(restored)) "
+                    + "return 1", Long.class);
+
+    private static final Mono<Boolean> ALLOWED = Mono.just(true);
+    private static final Mono<Boolean> REJECTED = Mono.just(false);
+
+    private static final long MIN_EMPTY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_EMPTY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long ERROR_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final long leaseTtlNanos;
+    private final int stripes;
+    private final Duration returnInterval;
+    private final Cache<String, Bucket> buckets;
+    private Disposable returnSweep;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder leasedTokens = new LongAdder();
+    private final LongAdder emptyLeases = new LongAdder();
+    private final LongAdder leaseErrors = new LongAdder();
+    private final LongAdder returnedTokens = new LongAdder();
+    private final AtomicLong lastErrorReportNanos = new AtomicLong(System.nanoTime() - ERROR_REPORT_INTERVAL_NANOS);
+
+    public TokenBucketRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                                  @Value("${gateway.rate-limit.lease-ttl:1s}") Duration leaseTtl,
+                                  @Value("${gateway.rate-limit.max-buckets:100000}") long maxBuckets,
+                                  @Value("${gateway.rate-limit.idle-bucket-ttl:10m}") Duration idleBucketTtl,
+                                  @Value("${gateway.rate-limit.return-interval:2s}") Duration returnInterval) {
+        this.redisTemplate = redisTemplate;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.returnInterval = returnInterval;
+        this.stripes = Runtime.getRuntime().availableProcessors();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleBucketTtl)
+                .build();
+    }
+
+    @PostConstruct
+    public void startReturnSweep() {
+        returnSweep = Flux.interval(returnInterval, returnInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> returnExpiredLeases())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopReturnSweep() {
+        if (returnSweep != null) {
+            returnSweep.dispose();
+        }
+    }
+
+    /**
+     * 归还已过期、且没有新的租借正在进行的租约中剩余的令牌。仍有请求的桶会在下一次租借时归还，这里只处理变得空闲的桶
+     */
+    private Mono<Void> returnExpiredLeases() {
+        return Flux.fromIterable(buckets.asMap().values())
+                .filter(Bucket::hasUnusedExpiredLease)
+                .flatMap(Bucket::returnUnused, 16)
+                .then();
+    }
+
+    /**
+     * 尝试从指定的桶中取得一个令牌。本地有令牌或桶已知为空时立即返回，不访问 Redis
+     * @param bucketName 桶名，例如路由 ID 或 路由 ID + 租户 ID
+     * @param limits 桶参数
+     * @return 是否放行
+     */
+    public Mono<Boolean> tryAcquire(String bucketName, TokenBucketLimits limits) {
+        return tryAcquire(buckets.get(bucketName, Bucket::new), limits);
+    }
+
+    private Mono<Boolean> tryAcquire(Bucket bucket, TokenBucketLimits limits) {
+        if (bucket.lease.tryAcquire()) {
+            allowed.increment();
+            return ALLOWED;
+        }
+        if (System.nanoTime() - bucket.emptyUntilNanos < 0) {
+            rejected.increment();
+            return REJECTED;
+        }
+        // 租约到达后重新竞争；新租到的令牌被并发请求抢光时再租一次，直到 Redis 中的桶为空
+        return bucket.renew(limits).flatMap(granted -> tryAcquire(bucket, limits));
+    }
+
+    /**
+     * 本节点的限流统计
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("leases", leases.sum());
+        stats.put("leasedTokens", leasedTokens.sum());
+        stats.put("emptyLeases", emptyLeases.sum());
+        stats.put("leaseErrors", leaseErrors.sum());
+        stats.put("returnedTokens", returnedTokens.sum());
+        stats.put("buckets", buckets.estimatedSize());
+        return stats;
+    }
+
+    private final class Bucket {
+
+        private final String redisKey;
+        private final TokenLease lease = new TokenLease(stripes);
+        private final AtomicReference<Mono<Long>> renewal = new AtomicReference<>();
+        private volatile long emptyUntilNanos = System.nanoTime();
+        /**
+         * 当前租约是否来自 Redis；Redis 故障时本地发放的令牌不能归还
+         */
+        private volatile boolean leasedFromRedis;
+        private volatile TokenBucketLimits lastLimits;
+
+        Bucket(String name) {
+            this.redisKey = KEY_PREFIX + name;
+        }
+
+        /**
+         * 向 Redis 租借一批令牌；已有租借在进行中时，共享同一个结果
+         */
+        Mono<Long> renew(TokenBucketLimits limits) {
+            for (; ; ) {
+                Mono<Long> inFlight = renewal.get();
+                if (inFlight != null) {
+                    return inFlight;
+                }
+                // 延迟到订阅时才执行：旧租约的剩余令牌只能被真正生效的那一次租借取走
+                Mono<Long> created = Mono.defer(() -> lease(limits))
+                        .doFinally(signal -> renewal.set(null))
+                        .cache();
+                if (renewal.compareAndSet(null, created)) {
+                    return created;
+                }
+            }
+        }
+
+        private Mono<Long> lease(TokenBucketLimits limits) {
+            lastLimits = limits;
+            // 旧租约剩余的令牌随这次租借一起归还；租借失败时这些令牌丢失，与 Redis 故障时放行的处理一致
+            long unused = takeUnused();
+            List<String> args = List.of(String.valueOf(limits.burst()), String.valueOf(limits.refill()),
+                    String.valueOf(limits.leaseSize()), String.valueOf(unused));
+            return redisTemplate.execute(LEASE_SCRIPT, List.of(redisKey), args)
+                    .next()
+                    .defaultIfEmpty(0L)
+                    .doOnNext(granted -> {
+                        leases.increment();
+                        returnedTokens.add(unused);
+                        leasedFromRedis = true;
+                        leasedTokens.add(granted);
+                        lease.refill(granted, leaseTtlNanos);
+                        if (granted == 0) {
+                            // 桶已空：在大约补充出一批令牌所需的时间内直接在本地拒绝
+                            emptyLeases.increment();
+                            long refillNanos = (long) (TimeUnit.SECONDS.toNanos(1) * limits.leaseSize() / limits.refill());
+                            emptyUntilNanos = System.nanoTime() + Math.max(MIN_EMPTY_BACKOFF_NANOS, Math.min(MAX_EMPTY_BACKOFF_NANOS, refillNanos));
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        leaseErrors.increment();
+                        reportError(error);
+                        leasedFromRedis = false;
+                        lease.refill(limits.leaseSize(), leaseTtlNanos);
+                        return Mono.just((long) limits.leaseSize());
+                    });
+        }
+
+        private long takeUnused() {
+            long unused = lease.drain();
+            return leasedFromRedis ? unused : 0;
+        }
+
+        boolean hasUnusedExpiredLease() {
+            return leasedFromRedis && lastLimits != null && renewal.get() == null && lease.isExpired();
+        }
+
+        /**
+         * 把过期租约中剩余的令牌归还给 Redis
+         */
+        Mono<Void> returnUnused() {
+            long unused = takeUnused();
+            if (unused == 0) {
+                return Mono.empty();
+            }
+            List<String> args = List.of(String.valueOf(lastLimits.burst()), String.valueOf(unused));
+            return redisTemplate.execute(RETURN_SCRIPT, List.of(redisKey), args)
+                    .next()
+                    .doOnNext(restored -> {
+                        if (restored == 1) {
+                            returnedTokens.add(unused);
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        log.debug("Failed to return {} unused rate limit tokens to {}.", unused, redisKey, error);
+                        return Mono.empty();
+                    })
+                    .then();
+        }
+    }
+
+    /**
+     * Redis 故障时每个请求都可能失败，日志每秒最多输出一次
+     */
+    private void reportError(Throwable error) {
+        long now = System.nanoTime();
+        long last = lastErrorReportNanos.get();
+        if (now - last >= ERROR_REPORT_INTERVAL_NANOS && lastErrorReportNanos.compareAndSet(last, now)) {
+            log.warn("Failed to lease rate limit tokens from Redis, allowing requests locally ({} errors so far).", leaseErrors.sum(), error);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ocft.gateway.openapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 一个节点从 Redis 令牌桶中租借到的令牌，分散在多个计数器 (stripe) 上。
+ * <p>
+ * 每个线程优先从自己对应的计数器扣减，只有这个计数器用完时才尝试其他计数器，因此事件循环线程之间几乎没有 CAS 竞争。
+ * 计数器之间间隔 64 字节，避免伪共享。租约到期后本地不再使用剩余的令牌，由 {@link #drain()} 取出后归还给 Redis，
+ * 不会被某个节点长期占用，也不会凭空消失。
+ */
+final class TokenLease {
+
+    /**
+     * 每个计数器占用 8 个 long (64 字节)，只使用第一个
+     */
+    private static final int PAD = 8;
+
+    private final int mask;
+    private final AtomicLongArray tokens;
+    private volatile long expiresAtNanos;
+
+    TokenLease(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.mask = size - 1;
+        this.tokens = new AtomicLongArray(size * PAD);
+        this.expiresAtNanos = System.nanoTime();
+    }
+
+    /**
+     * 尝试扣减一个本地令牌，不做任何 I/O
+     */
+    boolean tryAcquire() {
+        if (isExpired()) {
+            return false;
+        }
+        int start = probe();
+        for (int i = 0; i <= mask; i++) {
+            int index = ((start + i) & mask) * PAD;
+            long available;
+            while ((available = tokens.get(index)) > 0) {
+                if (tokens.compareAndSet(index, available, available - 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    boolean isExpired() {
+        return System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    /**
+     * 取走所有剩余的令牌。与 {@link #tryAcquire()} 并发执行时，每个令牌只会被其中一方拿到
+     * @return 取走的令牌数
+     */
+    long drain() {
+        long drained = 0;
+        for (int i = 0; i <= mask; i++) {
+            drained += tokens.getAndSet(i * PAD, 0);
+        }
+        return drained;
+    }
+
+    /**
+     * 安装一次新的租约，调用方应先用 {@link #drain()} 取走旧租约剩余的令牌
+     * @param granted 本次租到的令牌数
+     * @param ttlNanos 租约有效期
+     */
+    void refill(long granted, long ttlNanos) {
+        int stripes = mask + 1;
+        long perStripe = granted / stripes;
+        long remainder = granted % stripes;
+        for (int i = 0; i < stripes; i++) {
+            tokens.set(i * PAD, perStripe + (i < remainder ? 1 : 0));
+        }
+        expiresAtNanos = System.nanoTime() + ttlNanos;
+    }
+
+    private int probe() {
+        int h = Long.hashCode(Thread.currentThread().getId()) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ocft.gateway.openapi.unit;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * 租户与单元的映射关系
+ */
+@Entity
+@Table(name = "tenant_unit")
+@Data
+public class TenantUnitEntity {
+
+    @Id
+    @Column(length = 100)
+    private String tenantId;
+
+    @Column(nullable = false, length = 50)
+    private String unit;
+}
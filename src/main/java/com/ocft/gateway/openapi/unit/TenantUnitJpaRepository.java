@@ -0,0 +1,6 @@
+package com.ocft.gateway.openapi.unit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TenantUnitJpaRepository extends JpaRepository<TenantUnitEntity, String> {
+}
@@ -1,11 +1,135 @@
 package com.ocft.gateway.openapi.unit;
 
-import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 租户到单元的映射服务。
+ * <p>
+ * 映射关系保存在 {@code tenant_unit} 表中，通过一个有界的进程内缓存对外提供，过滤器的热路径上不会直接访问数据库：
+ * <ul>
+ *     <li>命中的映射缓存 {@code gateway.unit.tenant-cache.ttl}，未知租户也会以空值缓存 {@code negative-ttl}，避免反复穿透到数据库</li>
+ *     <li>同一个租户的并发未命中只会触发一次数据库查询 (single-flight)，其余请求等待同一个结果</li>
+ *     <li>映射变更时向 {@link #INVALIDATE_CHANNEL} 发布租户 ID (或 {@code *} 表示全部)，所有节点都会使对应缓存失效</li>
+ * </ul>
+ */
+@Slf4j
 @Service
 public class TenantUnitMappingService {
-    public String getUnitByTenantId(String tenantId) {
-        return tenantId;
+
+    public static final String INVALIDATE_CHANNEL = "gateway:tenant-unit:invalidate";
+    public static final String INVALIDATE_ALL = "*";
+    /**
+     * {@link #getCachedUnit(String)} 对已缓存的未知租户返回的值，单元名称不会是空字符串
+     */
+    public static final String NO_UNIT = "";
+
+    private final TenantUnitJpaRepository jpaRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final AsyncLoadingCache<String, Optional<String>> cache;
+
+    public TenantUnitMappingService(TenantUnitJpaRepository jpaRepository,
+                                    ReactiveStringRedisTemplate redisTemplate,
+                                    @Value("${gateway.unit.tenant-cache.max-size:100000}") long maxSize,
+                                    @Value("${gateway.unit.tenant-cache.ttl:5m}") Duration ttl,
+                                    @Value("${gateway.unit.tenant-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.jpaRepository = jpaRepository;
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new MappingExpiry(ttl, negativeTtl))
+                // JPA 是阻塞 IO，加载必须在弹性线程池上执行
+                .executor(task -> Schedulers.boundedElastic().schedule(task))
+                .recordStats()
+                .buildAsync(this::load);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.redisTemplate
+                .listenToChannel(INVALIDATE_CHANNEL)
+                .doOnNext(message -> invalidate(message.getMessage()))
+                .doOnError(error -> log.error("Error listening to Redis tenant-unit invalidation channel.", error))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2)))
+                .subscribe();
+        log.info("Subscribed to Redis tenant-unit invalidation channel: {}", INVALIDATE_CHANNEL);
+    }
+
+    /**
+     * 查询租户所属的单元
+     * @param tenantId 租户 ID
+     * @return 单元名称；未知租户返回 Optional.empty()
+     */
+    public Mono<Optional<String>> getUnitByTenantId(String tenantId) {
+        // 同一个租户的并发查询共享一个加载中的 future，某个订阅者取消时不能把它一起取消，否则其余等待者都会失败
+        return Mono.fromFuture(() -> cache.get(tenantId), true);
+    }
+
+    /**
+     * 只读取已经加载完成的缓存项，不会触发加载，也不会创建 Mono，供过滤器的热路径使用
+     * @param tenantId 租户 ID
+     * @return 缓存中的单元名称；已缓存的未知租户返回 {@link #NO_UNIT}；
+     * 未缓存、仍在加载或加载失败时返回 null，调用方应退回到 {@link #getUnitByTenantId(String)}
+     */
+    public String getCachedUnit(String tenantId) {
+        CompletableFuture<Optional<String>> future = cache.getIfPresent(tenantId);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join().orElse(NO_UNIT);
+    }
+
+    /**
+     * 使本节点上的缓存失效
+     * @param tenantId 租户 ID，{@code *} 表示全部
+     */
+    public void invalidate(String tenantId) {
+        if (INVALIDATE_ALL.equals(tenantId)) {
+            log.info("Invalidating all cached tenant-unit mappings.");
+            cache.synchronous().invalidateAll();
+        } else {
+            log.info("Invalidating cached tenant-unit mapping for tenant '{}'.", tenantId);
+            cache.synchronous().invalidate(tenantId);
+        }
+    }
+
+    private Optional<String> load(String tenantId) {
+        Optional<String> unit = jpaRepository.findById(tenantId).map(TenantUnitEntity::getUnit);
+        log.debug("Loaded tenant-unit mapping from database: '{}' -> {}", tenantId, unit.orElse("<none>"));
+        return unit;
+    }
+
+    /**
+     * 已知租户和未知租户使用不同的过期时间
+     */
+    private record MappingExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<String>> {
+
+        @Override
+        public long expireAfterCreate(String tenantId, Optional<String> unit, long currentTime) {
+            return unit.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String tenantId, Optional<String> unit, long currentTime, long currentDuration) {
+            return expireAfterCreate(tenantId, unit, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String tenantId, Optional<String> unit, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
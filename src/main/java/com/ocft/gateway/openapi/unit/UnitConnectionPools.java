@@ -0,0 +1,321 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.ocft.gateway.openapi.metrics.LatencyHistogram;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 每个单元、每个 L2 网关实例独立的上游连接池。
+ * <p>
+ * 所有单元共用网关默认的连接池时，一个变慢的单元会占满连接，拖累其他单元。这里为每个 {@link UnitPoolKey}
+ * (单元 + 实例地址 + 连接池参数) 创建一个 {@link ConnectionProvider} 和基于它的 HttpClient，参数来自单元映射中的
+ * {@link UnitPoolSettings}，未设置的部分使用 {@code gateway.unit-pool.*}。
+ * <p>
+ * HttpClient 与网关默认的 HttpClient 一样由 {@link HttpClientFactory} 创建 ({@code spring.cloud.gateway.httpclient}
+ * 中的 SSL、代理、连接超时、最大响应头等设置以及 {@link HttpClientCustomizer} 都会生效)，只把连接池换成单元自己的；
+ * 响应超时仍由路由过滤器处理。注册表重新加载后不再使用的连接池会被优雅关闭，参数不变的连接池继续复用。
+ * 只为当前注册表中存在的实例创建连接池：请求持有的实例已经被移除时返回 null，由调用方改用默认的 HttpClient，
+ * 避免重新创建一个不会再被关闭的连接池。
+ * <p>
+ * 每个连接池记录获取连接的耗时 (包括排队和新建连接) 和失败次数，并通过连接池自身的指标读取活跃、空闲和排队的数量。
+ */
+@Slf4j
+@Component
+public class UnitConnectionPools {
+
+    /**
+     * 关闭连接池时等待正在使用的连接归还的最长时间
+     */
+    private static final Duration DISPOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final UnitGatewayRegistry unitRegistry;
+    private final HttpClientProperties httpClientProperties;
+    private final ServerProperties serverProperties;
+    private final HttpClientSslConfigurer sslConfigurer;
+    private final ObjectProvider<HttpClientCustomizer> customizers;
+    private final UnitPoolSettings defaults;
+    private final Map<UnitPoolKey, UnitPool> pools = new ConcurrentHashMap<>();
+    private Disposable subscription;
+
+    public UnitConnectionPools(UnitGatewayRegistry unitRegistry,
+                               HttpClientProperties httpClientProperties,
+                               ServerProperties serverProperties,
+                               HttpClientSslConfigurer sslConfigurer,
+                               ObjectProvider<HttpClientCustomizer> customizers,
+                               @Value("${gateway.unit-pool.max-connections:500}") int maxConnections,
+                               @Value("${gateway.unit-pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+                               @Value("${gateway.unit-pool.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+                               @Value("${gateway.unit-pool.max-idle-time:30s}") Duration maxIdleTime,
+                               @Value("${gateway.unit-pool.max-life-time:0s}") Duration maxLifeTime,
+                               @Value("${gateway.unit-pool.eviction-interval:30s}") Duration evictionInterval,
+                               @Value("${gateway.unit-pool.keep-alive:true}") boolean keepAlive) {
+        this.unitRegistry = unitRegistry;
+        this.httpClientProperties = httpClientProperties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = customizers;
+        this.defaults = new UnitPoolSettings();
+        defaults.setMaxConnections(maxConnections);
+        defaults.setPendingAcquireMaxCount(pendingAcquireMaxCount);
+        defaults.setPendingAcquireTimeoutMs(pendingAcquireTimeout.toMillis());
+        defaults.setMaxIdleTimeMs(maxIdleTime.toMillis());
+        defaults.setMaxLifeTimeMs(maxLifeTime.toMillis());
+        defaults.setEvictionIntervalMs(evictionInterval.toMillis());
+        defaults.setKeepAlive(keepAlive);
+    }
+
+    @PostConstruct
+    public void init() {
+        subscription = unitRegistry.changes().subscribe(this::retain);
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        pools.values().forEach(pool -> {
+            pool.close();
+            pool.provider().dispose();
+        });
+        pools.clear();
+    }
+
+    /**
+     * @return 转发到该实例时使用的 HttpClient；实例已经不在注册表中时返回 null
+     */
+    public HttpClient httpClient(UnitInstance instance) {
+        UnitPool pool = pool(instance);
+        return pool != null ? pool.httpClient() : null;
+    }
+
+    /**
+     * @return 基于该实例连接池的 WebClient，供网关自己发起的请求 (例如对冲请求) 使用；实例已经不在注册表中时返回 null
+     */
+    public WebClient webClient(UnitInstance instance) {
+        UnitPool pool = pool(instance);
+        return pool != null ? pool.webClient() : null;
+    }
+
+    private UnitPool pool(UnitInstance instance) {
+        UnitPool pool = pools.get(instance.getPoolKey());
+        if (pool != null && !pool.isClosed()) {
+            return pool;
+        }
+        // 创建与 retain 互斥，并且注册表先替换再通知 retain：这里看到的是最新的注册表，
+        // 已经被移除的实例不会在 retain 之后重新创建连接池
+        synchronized (this) {
+            if (!isLive(instance.getPoolKey())) {
+                return null;
+            }
+            return pools.computeIfAbsent(instance.getPoolKey(), this::create);
+        }
+    }
+
+    private boolean isLive(UnitPoolKey key) {
+        UnitTarget target = unitRegistry.lookup(key.unit());
+        return target != null && target.getInstances().stream().anyMatch(instance -> key.equals(instance.getPoolKey()));
+    }
+
+    private UnitPool create(UnitPoolKey key) {
+        UnitPoolSettings settings = key.settings() != null ? key.settings().withDefaults(defaults) : defaults;
+        UnitPool pool = new UnitPool(key, settings);
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("unit-" + key.unit() + "-" + key.origin())
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.getPendingAcquireTimeoutMs()))
+                .disposeTimeout(DISPOSE_TIMEOUT)
+                .metrics(true, () -> pool);
+        if (settings.getMaxIdleTimeMs() > 0) {
+            builder.maxIdleTime(Duration.ofMillis(settings.getMaxIdleTimeMs()));
+        }
+        if (settings.getMaxLifeTimeMs() > 0) {
+            builder.maxLifeTime(Duration.ofMillis(settings.getMaxLifeTimeMs()));
+        }
+        if (settings.getEvictionIntervalMs() > 0) {
+            builder.evictInBackground(Duration.ofMillis(settings.getEvictionIntervalMs()));
+        }
+        ConnectionProvider provider = builder.build();
+
+        HttpClient httpClient = new PoolHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer,
+                customizers.orderedStream().toList(), provider).build()
+                .keepAlive(settings.getKeepAlive())
+                // 获取连接的耗时：从开始获取到拿到连接 (复用空闲连接、排队等待或新建连接)
+                .mapConnect(connect -> Mono.defer(() -> {
+                    long startNanos = System.nanoTime();
+                    return connect
+                            .doOnNext(connection -> pool.acquired(System.nanoTime() - startNanos))
+                            .doOnError(error -> pool.acquireFailed());
+                }));
+        pool.start(provider, httpClient);
+        log.info("Created connection pool for unit '{}' at {}: {}", key.unit(), key.origin(), settings);
+        return pool;
+    }
+
+    /**
+     * 注册表重新加载后，关闭不再被任何实例使用的连接池
+     */
+    private synchronized void retain(Map<String, UnitTarget> targets) {
+        Set<UnitPoolKey> live = new HashSet<>();
+        targets.values().forEach(target -> target.getInstances().forEach(instance -> live.add(instance.getPoolKey())));
+        pools.forEach((key, pool) -> {
+            if (!live.contains(key) && pools.remove(key, pool)) {
+                // 先标记为关闭，之后拿到这个连接池的请求改用默认的 HttpClient；已经在使用的连接在关闭前有 DISPOSE_TIMEOUT 归还
+                pool.close();
+                log.info("Closing connection pool for unit '{}' at {}.", key.unit(), key.origin());
+                pool.provider().disposeLater().subscribe(null, error ->
+                        log.warn("Failed to close connection pool for unit '{}' at {}.", key.unit(), key.origin(), error));
+            }
+        });
+    }
+
+    /**
+     * 本节点每个连接池的参数和状态：活跃、空闲、排队的连接数，获取连接的次数、失败次数和耗时分布
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        pools.values().forEach(pool -> snapshot.add(pool.snapshot()));
+        snapshot.sort((a, b) -> (a.get("unit") + " " + a.get("origin")).compareTo(b.get("unit") + " " + b.get("origin")));
+        return snapshot;
+    }
+
+    /**
+     * 与创建网关默认 HttpClient 相同的 {@link HttpClientFactory}，只替换连接池
+     */
+    private static final class PoolHttpClientFactory extends HttpClientFactory {
+
+        private final ConnectionProvider provider;
+
+        PoolHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                              HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                              ConnectionProvider provider) {
+            super(properties, serverProperties, sslConfigurer, customizers);
+            this.provider = provider;
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            return provider;
+        }
+
+        HttpClient build() {
+            try {
+                return createInstance();
+            } catch (RuntimeException e) {
+                provider.dispose();
+                throw new IllegalStateException("Failed to create HttpClient for unit connection pool.", e);
+            }
+        }
+    }
+
+    /**
+     * 一个连接池，同时作为它的指标注册器接收连接池的计数器
+     */
+    private static final class UnitPool implements ConnectionProvider.MeterRegistrar {
+
+        private final UnitPoolKey key;
+        private final UnitPoolSettings settings;
+        private final Map<SocketAddress, ConnectionPoolMetrics> metrics = new ConcurrentHashMap<>();
+        private final LatencyHistogram acquireLatency = new LatencyHistogram();
+        private final LongAdder acquires = new LongAdder();
+        private final LongAdder acquireFailures = new LongAdder();
+        private volatile ConnectionProvider provider;
+        private volatile HttpClient httpClient;
+        private volatile WebClient webClient;
+        private volatile boolean closed;
+
+        UnitPool(UnitPoolKey key, UnitPoolSettings settings) {
+            this.key = key;
+            this.settings = settings;
+        }
+
+        void start(ConnectionProvider provider, HttpClient httpClient) {
+            this.provider = provider;
+            this.httpClient = httpClient;
+            this.webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        ConnectionProvider provider() {
+            return provider;
+        }
+
+        HttpClient httpClient() {
+            return httpClient;
+        }
+
+        WebClient webClient() {
+            return webClient;
+        }
+
+        void acquired(long nanos) {
+            acquires.increment();
+            acquireLatency.recordNanos(nanos);
+        }
+
+        void acquireFailed() {
+            acquireFailures.increment();
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            this.metrics.put(remoteAddress, metrics);
+        }
+
+        Map<String, Object> snapshot() {
+            int active = 0;
+            int idle = 0;
+            int pending = 0;
+            for (ConnectionPoolMetrics pool : metrics.values()) {
+                active += pool.acquiredSize();
+                idle += pool.idleSize();
+                pending += pool.pendingAcquireSize();
+            }
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("unit", key.unit());
+            snapshot.put("origin", key.origin());
+            snapshot.put("settings", settings);
+            snapshot.put("activeConnections", active);
+            snapshot.put("idleConnections", idle);
+            snapshot.put("pendingAcquires", pending);
+            snapshot.put("acquires", acquires.sum());
+            snapshot.put("acquireFailures", acquireFailures.sum());
+            snapshot.put("acquireLatency", acquireLatency.summarize());
+            return snapshot;
+        }
+    }
+}
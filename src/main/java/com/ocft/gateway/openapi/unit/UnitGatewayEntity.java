@@ -0,0 +1,36 @@
+package com.ocft.gateway.openapi.unit;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * 单元与其 L2 网关地址的映射关系
+ */
+@Entity
+@Table(name = "unit_gateway")
+@Data
+public class UnitGatewayEntity {
+
+    @Id
+    @Column(length = 50)
+    private String unit;
+
+    /**
+     * L2 网关的基础地址，只包含 scheme、host、port 以及可选的路径前缀，例如 http://l2-gateway-of-unit-a.com
+     * 单元有多个 L2 网关实例时用逗号分隔，例如 http://l2-a-1:8080,http://l2-a-2:8080
+     */
+    @Column(nullable = false)
+    private String gatewayUri;
+
+    @Column(nullable = false)
+    private boolean enabled = true;
+
+    /**
+     * 连接池参数 ({@link UnitPoolSettings} 的 JSON)，为空时使用默认值
+     */
+    @Column(columnDefinition = "TEXT")
+    private String poolSettings;
+}
@@ -0,0 +1,10 @@
+package com.ocft.gateway.openapi.unit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface UnitGatewayJpaRepository extends JpaRepository<UnitGatewayEntity, String> {
+
+    List<UnitGatewayEntity> findByEnabled(boolean enabled);
+}
@@ -0,0 +1,177 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单元到 L2 网关地址的注册表。
+ * <p>
+ * 注册表保存在 MySQL ({@code unit_gateway}) 和 Redis ({@link #UNITS_KEY}) 中，每个节点在内存里持有一份不可变的副本，
+ * 收到 {@link #REFRESH_UNITS_CHANNEL} 上的通知后整体重新加载并原子替换 (copy-on-write)。
+ * 重新加载逐个执行，后一次加载读到的数据不会被更早开始的加载覆盖。
+ * 请求路径上的 {@link #lookup(String)} 只是一次无锁的 Map 读取，单元名称按原样匹配，不做大小写转换。
+ * <p>
+ * Hash 中的值是 {@link UnitGatewaySpec}：只有地址时是地址字符串，带连接池参数时是 JSON。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnitGatewayRegistry {
+
+    public static final String UNITS_KEY = "gateway:units";
+    public static final String REFRESH_UNITS_CHANNEL = "gateway:units:refresh";
+
+    private final UnitGatewayJpaRepository jpaRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private volatile Map<String, UnitTarget> targets = Map.of();
+    private final Sinks.Many<Map<String, UnitTarget>> changes = Sinks.many().replay().latest();
+
+    /**
+     * 重新加载请求先进入队列，再用 concatMap 逐个执行。
+     * 并发执行时先开始的读取可能更晚完成，用旧数据覆盖新的注册表，还会关闭仍在使用的实例的连接池
+     */
+    private final Sinks.Many<Sinks.One<Map<String, UnitTarget>>> reloadRequests = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable reloadSubscription;
+    private Disposable refreshSubscription;
+
+    @PostConstruct
+    public void init() {
+        reloadSubscription = reloadRequests.asFlux()
+                .concatMap(this::load)
+                .subscribe();
+        reload().subscribe(null, error -> log.error("Failed to load unit gateway registry.", error));
+        refreshSubscription = this.redisTemplate
+                .listenToChannel(REFRESH_UNITS_CHANNEL)
+                .doOnNext(message -> {
+                    log.info("Received unit registry refresh notification from Redis channel: {}", message.getMessage());
+                    reload().subscribe(null, error -> log.error("Failed to reload unit gateway registry.", error));
+                })
+                .doOnError(error -> log.error("Error listening to Redis unit registry refresh channel.", error))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2)))
+                .subscribe();
+        log.info("Subscribed to Redis unit registry refresh channel: {}", REFRESH_UNITS_CHANNEL);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (refreshSubscription != null) {
+            refreshSubscription.dispose();
+        }
+        if (reloadSubscription != null) {
+            reloadSubscription.dispose();
+        }
+    }
+
+    /**
+     * @param unit 单元名称 (区分大小写)
+     * @return 该单元的 L2 网关目标，未注册时返回 null
+     */
+    public UnitTarget lookup(String unit) {
+        return targets.get(unit);
+    }
+
+    public Map<String, UnitTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * 每次加载后的注册表，订阅时先收到当前的注册表
+     */
+    public Flux<Map<String, UnitTarget>> changes() {
+        return changes.asFlux();
+    }
+
+    /**
+     * 优先从 Redis 加载；Redis 中没有数据或读取失败时回退到数据库。排在之前的加载完成后才开始
+     */
+    public Mono<Map<String, UnitTarget>> reload() {
+        Sinks.One<Map<String, UnitTarget>> loaded = Sinks.one();
+        // 通知和启动加载可能同时到达，并发的 emit 在这里自旋重试
+        reloadRequests.emitNext(loaded, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return loaded.asMono();
+    }
+
+    private Mono<Void> load(Sinks.One<Map<String, UnitTarget>> loaded) {
+        Mono<Map<String, String>> fromRedis = redisTemplate.<String, String>opsForHash().entries(UNITS_KEY)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .filter(units -> !units.isEmpty())
+                .onErrorResume(error -> {
+                    log.warn("Failed to load unit registry from Redis, falling back to database.", error);
+                    return Mono.empty();
+                });
+        Mono<Map<String, String>> fromDatabase = Mono.fromCallable(() -> {
+                    Map<String, String> units = new HashMap<>();
+                    jpaRepository.findByEnabled(true).forEach(entity -> units.put(entity.getUnit(), toValue(entity)));
+                    return units;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+        return fromRedis.switchIfEmpty(fromDatabase)
+                .map(this::install)
+                .doOnNext(loaded::tryEmitValue)
+                .then()
+                .onErrorResume(error -> {
+                    loaded.tryEmitError(error);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 编译并原子替换当前的注册表
+     */
+    synchronized Map<String, UnitTarget> install(Map<String, String> units) {
+        Map<String, UnitTarget> compiled = compile(units);
+        targets = compiled;
+        changes.tryEmitNext(compiled);
+        log.info("Loaded unit gateway registry: {}", compiled.values());
+        return compiled;
+    }
+
+    /**
+     * 把数据库中的一行转换成与 Redis Hash 相同格式的值
+     */
+    private String toValue(UnitGatewayEntity entity) {
+        if (!StringUtils.hasText(entity.getPoolSettings())) {
+            return entity.getGatewayUri();
+        }
+        try {
+            UnitPoolSettings pool = objectMapper.readValue(entity.getPoolSettings(), UnitPoolSettings.class);
+            return new UnitGatewaySpec(entity.getGatewayUri(), pool).toRedisValue(objectMapper);
+        } catch (JsonProcessingException e) {
+            log.error("Invalid pool settings for unit '{}', using defaults: {}", entity.getUnit(), entity.getPoolSettings(), e);
+            return entity.getGatewayUri();
+        }
+    }
+
+    private Map<String, UnitTarget> compile(Map<String, String> units) {
+        Map<String, UnitTarget> compiled = new HashMap<>();
+        units.forEach((unit, value) -> {
+            try {
+                UnitGatewaySpec spec = UnitGatewaySpec.fromRedisValue(value, objectMapper);
+                compiled.put(unit, new UnitTarget(unit, UnitTarget.parseGatewayUris(spec.gatewayUri()), spec.pool()));
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                // 单个单元配置错误不影响其他单元
+                log.error("Invalid L2 gateway configuration for unit '{}': {}", unit, value, e);
+            }
+        });
+        return Map.copyOf(compiled);
+    }
+}
@@ -0,0 +1,27 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 注册表中一个单元的配置：L2 网关地址 (多个实例用逗号分隔) 和可选的连接池参数。
+ * <p>
+ * 在 Redis Hash ({@link UnitGatewayRegistry#UNITS_KEY}) 中，没有连接池参数的单元仍然只保存地址字符串，
+ * 有参数时保存这个对象的 JSON，读取时两种格式都接受。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UnitGatewaySpec(String gatewayUri, UnitPoolSettings pool) {
+
+    public static UnitGatewaySpec of(String gatewayUri) {
+        return new UnitGatewaySpec(gatewayUri, null);
+    }
+
+    public String toRedisValue(ObjectMapper objectMapper) throws JsonProcessingException {
+        return pool == null || pool.isEmpty() ? gatewayUri : objectMapper.writeValueAsString(this);
+    }
+
+    public static UnitGatewaySpec fromRedisValue(String value, ObjectMapper objectMapper) throws JsonProcessingException {
+        return value.startsWith("{") ? objectMapper.readValue(value, UnitGatewaySpec.class) : of(value);
+    }
+}
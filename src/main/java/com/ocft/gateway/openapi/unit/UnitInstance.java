@@ -0,0 +1,101 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.cloud.gateway.route.Route;
+
+import java.net.URI;
+
+/**
+ * 单元中的一个 L2 网关实例，地址在加载时就解析好，请求路径上不再做字符串解析。
+ * <p>
+ * 转发用的 {@link Route} 也在加载时构建一次并在所有请求之间共享：
+ * 下游的 RouteToRequestUrlFilter 只读取它的 scheme/host/port，与具体请求无关。
+ * 原路由带有元数据 (例如 response-timeout / connect-timeout) 时，使用带上这些元数据的副本，
+ * 副本按原路由对象缓存，路由刷新后旧的副本随原路由一起被回收。
+ */
+@Getter
+@ToString(of = "gatewayUri")
+public final class UnitInstance {
+
+    private final String unit;
+
+    /**
+     * 实例在单元中的序号
+     */
+    private final int index;
+
+    private final URI gatewayUri;
+
+    private final Route route;
+
+    @Getter(AccessLevel.NONE)
+    private final Cache<Route, Route> routesWithMetadata = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(1024)
+            .build();
+
+    /**
+     * 目标地址去掉末尾 '/' 后的字符串形式，请求路径直接拼在它后面
+     */
+    private final String uriPrefix;
+
+    /**
+     * 该实例使用的连接池，见 {@link UnitConnectionPools}
+     */
+    private final UnitPoolKey poolKey;
+
+    UnitInstance(String unit, int index, URI gatewayUri, UnitPoolSettings pool) {
+        this.unit = unit;
+        this.index = index;
+        this.gatewayUri = gatewayUri;
+        this.poolKey = UnitPoolKey.of(unit, gatewayUri, pool);
+        String prefix = gatewayUri.toString();
+        this.uriPrefix = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        this.route = Route.async()
+                .id(UnitSelectionGatewayFilterFactory.DYNAMIC + gatewayUri) // 路由 ID
+                .uri(gatewayUri) // 目标 URI
+                .predicate(exchange -> true) // 匹配规则，这里写死匹配所有
+                .build();
+    }
+
+    /**
+     * @param original UnitSelection 之前匹配到的路由
+     * @return 转发到这个实例时使用的路由，带有原路由的元数据
+     */
+    public Route routeFor(Route original) {
+        if (original == null || original.getMetadata().isEmpty()) {
+            return route;
+        }
+        return routesWithMetadata.get(original, key -> Route.async()
+                .id(route.getId())
+                .uri(gatewayUri)
+                .predicate(exchange -> true)
+                .metadata(key.getMetadata())
+                .build());
+    }
+
+    /**
+     * 把原始请求的 path 和 query 拼到 L2 网关地址后面。
+     * 原始 URI 的 raw path/query 已经是编码后的形式，直接拼接即可，不需要再经过 UriComponentsBuilder 解析和编码
+     */
+    public URI rewrite(URI originalUri) {
+        String rawPath = originalUri.getRawPath();
+        String rawQuery = originalUri.getRawQuery();
+        int length = uriPrefix.length() + (rawPath != null ? rawPath.length() + 1 : 0) + (rawQuery != null ? rawQuery.length() + 1 : 0);
+        StringBuilder uri = new StringBuilder(length).append(uriPrefix);
+        if (rawPath != null && !rawPath.isEmpty()) {
+            if (rawPath.charAt(0) != '/') {
+                uri.append('/');
+            }
+            uri.append(rawPath);
+        }
+        if (rawQuery != null) {
+            uri.append('?').append(rawQuery);
+        }
+        return URI.create(uri.toString());
+    }
+}
@@ -0,0 +1,19 @@
+package com.ocft.gateway.openapi.unit;
+
+import java.net.URI;
+
+/**
+ * 连接池的标识：单元、L2 网关实例的 scheme://host:port 以及单元的连接池参数。
+ * 注册表重新加载后三者都不变的实例继续使用原来的连接池
+ */
+public record UnitPoolKey(String unit, String origin, UnitPoolSettings settings) {
+
+    static UnitPoolKey of(String unit, URI gatewayUri, UnitPoolSettings settings) {
+        int port = gatewayUri.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(gatewayUri.getScheme()) ? 443 : 80;
+        }
+        return new UnitPoolKey(unit, gatewayUri.getScheme() + "://" + gatewayUri.getHost() + ":" + port,
+                settings == null || settings.isEmpty() ? null : settings);
+    }
+}
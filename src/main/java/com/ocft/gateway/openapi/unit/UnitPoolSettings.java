@@ -0,0 +1,88 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * 单元到 L2 网关的连接池参数，与单元映射保存在一起 ({@code unit_gateway.pool_settings}，JSON)。
+ * <p>
+ * 每个字段都可以为空，为空时使用 {@code gateway.unit-pool.*} 中的默认值。时间以毫秒为单位，0 表示不限制。
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UnitPoolSettings {
+
+    /**
+     * 每个 L2 网关实例的最大连接数
+     */
+    private Integer maxConnections;
+
+    /**
+     * 等待获取连接的请求数上限，超过时立即失败
+     */
+    private Integer pendingAcquireMaxCount;
+
+    /**
+     * 等待获取连接的最长时间
+     */
+    private Long pendingAcquireTimeoutMs;
+
+    /**
+     * 连接空闲超过这个时间后关闭，应小于 L2 网关自己的空闲超时
+     */
+    private Long maxIdleTimeMs;
+
+    /**
+     * 连接的最长存活时间，到期后不再复用 (例如让 L2 扩容后的新实例分到连接)
+     */
+    private Long maxLifeTimeMs;
+
+    /**
+     * 后台检查并关闭空闲/过期连接的间隔，0 表示只在获取连接时检查
+     */
+    private Long evictionIntervalMs;
+
+    /**
+     * 是否复用连接 (HTTP keep-alive)
+     */
+    private Boolean keepAlive;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return maxConnections == null && pendingAcquireMaxCount == null && pendingAcquireTimeoutMs == null
+                && maxIdleTimeMs == null && maxLifeTimeMs == null && evictionIntervalMs == null && keepAlive == null;
+    }
+
+    /**
+     * @return 用 {@code defaults} 补齐空字段后的新对象
+     */
+    public UnitPoolSettings withDefaults(UnitPoolSettings defaults) {
+        UnitPoolSettings merged = new UnitPoolSettings();
+        merged.setMaxConnections(maxConnections != null ? maxConnections : defaults.getMaxConnections());
+        merged.setPendingAcquireMaxCount(pendingAcquireMaxCount != null ? pendingAcquireMaxCount : defaults.getPendingAcquireMaxCount());
+        merged.setPendingAcquireTimeoutMs(pendingAcquireTimeoutMs != null ? pendingAcquireTimeoutMs : defaults.getPendingAcquireTimeoutMs());
+        merged.setMaxIdleTimeMs(maxIdleTimeMs != null ? maxIdleTimeMs : defaults.getMaxIdleTimeMs());
+        merged.setMaxLifeTimeMs(maxLifeTimeMs != null ? maxLifeTimeMs : defaults.getMaxLifeTimeMs());
+        merged.setEvictionIntervalMs(evictionIntervalMs != null ? evictionIntervalMs : defaults.getEvictionIntervalMs());
+        merged.setKeepAlive(keepAlive != null ? keepAlive : defaults.getKeepAlive());
+        return merged;
+    }
+
+    /**
+     * @throws IllegalArgumentException 有字段为负数或连接数不是正数
+     */
+    public void validate() {
+        if (maxConnections != null && maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be positive");
+        }
+        if (pendingAcquireMaxCount != null && pendingAcquireMaxCount < -1) {
+            throw new IllegalArgumentException("pendingAcquireMaxCount must be -1 (unbounded) or non-negative");
+        }
+        for (Long millis : new Long[]{pendingAcquireTimeoutMs, maxIdleTimeMs, maxLifeTimeMs, evictionIntervalMs}) {
+            if (millis != null && millis < 0) {
+                throw new IllegalArgumentException("Pool timeouts must not be negative");
+            }
+        }
+    }
+}
@@ -2,16 +2,19 @@
 
 package com.ocft.gateway.openapi.unit;
 
-import org.springframework.beans.factory.ObjectProvider;
+import com.ocft.gateway.openapi.concurrency.ConcurrencyLimiterRegistry;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.server.ServerWebExchange;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.util.Optional;
 
 /**
  * 第 1 步：在 L1 网关中定义一个“通配”路由在您的路由管理服务 (route-manager) 中，为 L1 网关创建这样一条路由规则。注意，它的 uri 是一个无意义的占位符，因为它会被我们的自定义 Filter 覆盖。
@@ -56,7 +59,7 @@ import java.net.URI;
  * <p>
  * 把 L1, L2, L3 和注册中心串联起来，看一个完整的请求旅程：
  * 1.[外部请求] -> 客户端发送请求 GET /api/orders/123，并携带分区键 X-Tenant-ID: tenant-1。
- * 2.[L1 网关] -> a. L1 网关的自定义 Filter (UnitSelectionGatewayFilter) 捕获请求。 b. Filter 提取 tenant-1，查询缓存/数据库，得知 tenant-1 属于 LA 单元。 c. Filter 从配置中找到 LA 单元对应的 L2 网关地址 http://l2-gateway-of-unit-a.com。 d. L1 网关动态修改请求目标，将请求转发给 L2 网关。
+ * 2.[L1 网关] -> a. L1 网关的自定义 Filter (UnitSelectionGatewayFilter) 捕获请求。 b. Filter 提取 tenant-1，查询缓存/数据库，得知 tenant-1 属于 LA 单元。 c. Filter 从单元注册表 (UnitGatewayRegistry) 中找到 LA 单元对应的 L2 网关地址 http://l2-gateway-of-unit-a.com。 d. L1 网关动态修改请求目标，将请求转发给 L2 网关。
  * 3.[L2 网关 (LA 单元)] -> a. L2 网关收到请求 GET /api/orders/123。 b. 它在自己的路由表（从它自己的 Redis 加载）中进行匹配，根据路径 /api/orders/** 找到了上面那条规则。 c. 它看到了目标是 uri: "lb://order-service-in-unit-a"。
  * 4.[L2 网关与注册中心交互] -> a. Spring Cloud Gateway 的服务发现模块被激活。 b. L2 网关向注册中心发出查询：“你好，请告诉我 order-service-in-unit-a 这个服务现在有哪些健康的实例？” c. 注册中心回复一个地址列表，比如 [10.10.1.5:8080, 10.10.1.6:8080]。
  * 5.[L2 网关执行负载均衡] -> a. Spring Cloud Gateway 内置的负载均衡器 (Spring Cloud LoadBalancer) 从列表中选择一个实例，比如 10.10.1.5:8080（默认使用轮询策略）。 b. L2 网关将请求最终转发到 http://10.10.1.5:8080/api/orders/123。
@@ -67,68 +70,95 @@ import java.net.URI;
 public class UnitSelectionGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
 
     public static final String DYNAMIC = "dynamic_";
+    /**
+     * 请求被转发到的单元名称，供延迟统计等按单元聚合
+     */
+    public static final String UNIT_ATTR = UnitSelectionGatewayFilterFactory.class.getName() + ".unit";
+    /**
+     * 请求被转发到的 L2 网关实例 ({@link UnitInstance})，对冲请求据此选择另一个实例
+     */
+    public static final String UNIT_INSTANCE_ATTR = UnitSelectionGatewayFilterFactory.class.getName() + ".unitInstance";
     private final TenantUnitMappingService mappingService;
+    private final UnitGatewayRegistry unitRegistry;
+    private final ConcurrencyLimiterRegistry concurrencyLimiters;
 
     // 使用构造函数注入，这是推荐的最佳实践
-    public UnitSelectionGatewayFilterFactory(TenantUnitMappingService mappingService) {
+    public UnitSelectionGatewayFilterFactory(TenantUnitMappingService mappingService, UnitGatewayRegistry unitRegistry,
+                                             ConcurrencyLimiterRegistry concurrencyLimiters) {
         this.mappingService = mappingService;
+        this.unitRegistry = unitRegistry;
+        this.concurrencyLimiters = concurrencyLimiters;
     }
 
     @Override
     public GatewayFilter apply(Object config) {
         return (exchange, chain) -> {
             String tenantId = exchange.getRequest().getHeaders().getFirst("X-Tenant-ID");
-            URI originalUri = exchange.getRequest().getURI();
 
             if (tenantId == null || tenantId.isEmpty()) { // Add check for empty tenantId
-                log.trace("No X-Tenant-ID header found, skipping dynamic routing for: {}", originalUri);
+                log.trace("No X-Tenant-ID header found, skipping dynamic routing for: {}", exchange.getRequest().getURI());
                 return chain.filter(exchange);
             }
 
-            String unit = mappingService.getUnitByTenantId(tenantId);
-            log.debug("Tenant '{}' mapped to unit '{}'", tenantId, unit);
+            // 快速路径: 映射已经在本地缓存中时同步处理，不再为每个请求组装一条 Mono 链
+            String cached = mappingService.getCachedUnit(tenantId);
+            if (cached != null) {
+                return selectUnit(exchange, chain, tenantId, cached);
+            }
 
-            String l2GatewayHost = lookupL2GatewayHostFromConfig(unit);
+            // 映射关系来自带缓存的 mappingService，热路径上不会直接访问数据库
+            return mappingService.getUnitByTenantId(tenantId)
+                    .onErrorResume(error -> {
+                        log.warn("Failed to resolve unit for tenant '{}'. Passing through.", tenantId, error);
+                        return Mono.just(Optional.empty());
+                    })
+                    .flatMap(unit -> selectUnit(exchange, chain, tenantId, unit.orElse(TenantUnitMappingService.NO_UNIT)));
+        };
+    }
 
-            if (l2GatewayHost == null || l2GatewayHost.isEmpty()) { // Add check for empty l2GatewayHost
-                log.warn("No L2 gateway mapping found for tenant '{}'. Passing through.", tenantId);
-                return chain.filter(exchange);
-            }
+    /**
+     * @param unit 单元名称，未知租户为 {@link TenantUnitMappingService#NO_UNIT}
+     */
+    private Mono<Void> selectUnit(ServerWebExchange exchange, GatewayFilterChain chain, String tenantId, String unit) {
+        if (TenantUnitMappingService.NO_UNIT.equals(unit)) {
+            log.warn("No unit mapping found for tenant '{}'. Passing through.", tenantId);
+            return chain.filter(exchange);
+        }
+        log.debug("Tenant '{}' mapped to unit '{}'", tenantId, unit);
+        return routeToUnit(exchange, chain, tenantId, unit);
+    }
 
-            URI newUri = UriComponentsBuilder.fromUriString(l2GatewayHost)
-                    .path(originalUri.getRawPath())
-                    .query(originalUri.getRawQuery())
-                    .build(true)
-                    .toUri();
+    private Mono<Void> routeToUnit(ServerWebExchange exchange, GatewayFilterChain chain, String tenantId, String unit) {
+        // 单元注册表在内存中，这里只是一次无锁的 Map 读取
+        UnitTarget target = unitRegistry.lookup(unit);
 
-            // 关键: 必须同时覆盖两个属性
-            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, newUri);
-            ServerWebExchangeUtils.addOriginalRequestUrl(exchange, originalUri);
+        if (target == null) {
+            log.warn("No L2 gateway mapping found for tenant '{}' (unit '{}'). Passing through.", tenantId, unit);
+            return chain.filter(exchange);
+        }
 
-            Route newRoute = Route.async()
-                    .id(DYNAMIC + l2GatewayHost) // 路由 ID
-                    .uri(newUri) // 目标 URI
-                    .predicate(x -> true) // 匹配规则，这里写死匹配所有
-                    .build();
-            // 覆盖路由目标，避免继续使用占位符 route
-            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, newRoute);
+        UnitInstance instance = target.select();
+        URI originalUri = exchange.getRequest().getURI();
+        URI newUri = instance.rewrite(originalUri);
 
-            log.info("Dynamic routing for tenant '{}': {} -> {}", tenantId, originalUri, newUri);
+        // 关键: 必须同时覆盖两个属性
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, newUri);
+        ServerWebExchangeUtils.addOriginalRequestUrl(exchange, originalUri);
 
-            return chain.filter(exchange);
-        };
-    }
+        exchange.getAttributes().put(UNIT_ATTR, unit);
+        exchange.getAttributes().put(UNIT_INSTANCE_ATTR, instance);
 
+        // 覆盖路由目标，避免继续使用占位符 route。Route 按实例预先构建并共享，不再每个请求新建；
+        // 原路由的元数据 (超时等) 保留在替换后的路由上，NettyRoutingFilter 和对冲请求据此设置超时
+        Route original = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, instance.routeFor(original));
 
-    // 伪代码：从配置中读取 L2 网关的主机地址
-    private String lookupL2GatewayHostFromConfig(String unit) {
-        // 这里应该只返回 host，例如 "http://l2-gateway-of-unit-a.com" 或 "https://httpbin.org"
-        // 在实际应用中，这部分逻辑会更复杂，可能需要从配置中心（如 Nacos, Apollo）读取
-        if ("LA".equalsIgnoreCase(unit)) { // Use equalsIgnoreCase for case-insensitive comparison
-            return "https://httpbin.org";
-        } else if ("LB".equalsIgnoreCase(unit)) {
-            return "http://localhost:8888/admin/routes/hello";
+        // 多参数日志会分配可变参数数组，关闭时连这一步也跳过
+        if (log.isDebugEnabled()) {
+            log.debug("Dynamic routing for tenant '{}': {} -> {}", tenantId, originalUri, newUri);
         }
-        return null;
+
+        // 单元变慢时按自适应并发上限快速失败 (503)，不再继续向它堆积请求
+        return concurrencyLimiters.filterUnit(unit, exchange, chain);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package com.ocft.gateway.openapi.unit;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个单元对应的 L2 网关目标。单元可以有多个 L2 网关实例 (注册表中用逗号分隔多个地址)，
+ * 请求按轮询分配到各个实例上；对冲请求 (Hedge) 发往与首个请求不同的实例。每个实例有自己的连接池 ({@link UnitConnectionPools})。
+ */
+@Getter
+@ToString(of = {"unit", "instances"})
+public final class UnitTarget {
+
+    private final String unit;
+
+    private final List<UnitInstance> instances;
+
+    /**
+     * 单元的连接池参数，为 null 时全部使用默认值
+     */
+    private final UnitPoolSettings pool;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger next = new AtomicInteger();
+
+    public UnitTarget(String unit, List<URI> gatewayUris, UnitPoolSettings pool) {
+        if (gatewayUris.isEmpty()) {
+            throw new IllegalArgumentException("Unit '" + unit + "' has no L2 gateway URI");
+        }
+        List<UnitInstance> compiled = new ArrayList<>(gatewayUris.size());
+        for (URI gatewayUri : gatewayUris) {
+            compiled.add(new UnitInstance(unit, compiled.size(), gatewayUri, pool));
+        }
+        this.unit = unit;
+        this.instances = List.copyOf(compiled);
+        this.pool = pool;
+    }
+
+    /**
+     * 按轮询选择一个实例；只有一个实例时不做任何原子操作
+     */
+    public UnitInstance select() {
+        if (instances.size() == 1) {
+            return instances.get(0);
+        }
+        return instances.get(Math.floorMod(next.getAndIncrement(), instances.size()));
+    }
+
+    /**
+     * @return 与给定实例不同的下一个实例；单元只有一个实例时返回 null
+     */
+    public UnitInstance alternate(UnitInstance instance) {
+        if (instances.size() == 1) {
+            return null;
+        }
+        return instances.get((instance.getIndex() + 1) % instances.size());
+    }
+
+    /**
+     * 解析注册表中的地址，多个 L2 网关实例用逗号分隔
+     * @throws IllegalArgumentException 地址为空、格式错误或不是绝对地址
+     */
+    public static List<URI> parseGatewayUris(String gatewayUris) {
+        List<URI> uris = new ArrayList<>();
+        if (gatewayUris != null) {
+            for (String value : gatewayUris.split(",")) {
+                String trimmed = value.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                URI uri = URI.create(trimmed);
+                if (uri.getScheme() == null || uri.getHost() == null) {
+                    throw new IllegalArgumentException("L2 gateway URI must be absolute: " + trimmed);
+                }
+                uris.add(uri);
+            }
+        }
+        if (uris.isEmpty()) {
+            throw new IllegalArgumentException("L2 gateway URI must not be empty");
+        }
+        return uris;
+    }
+}
@@ -0,0 +1,205 @@
+package com.ocft.gateway.openapi.admin;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 基于 R2DBC 的非阻塞路由存储，{@code gateway.routes.store=r2dbc} 时启用，连接池见 {@code R2dbcRouteStoreConfig}。
+ * <p>
+ * SQL 与 JPA 实体映射到同一张 gateway_routes 表，两种存储可以随时切换。
+ * 事务管理器只在这里内部使用，不注册为 Bean，避免与 JPA 的事务管理器冲突。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "gateway.routes", name = "store", havingValue = "r2dbc")
+public class R2dbcRouteStore implements RouteStore {
+
+    private static final String COLUMNS = "id, uri, predicates, filters, route_order, enabled, content_hash, updated_at";
+
+    private static final String UPSERT_SQL = "INSERT INTO gateway_routes (" + COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE uri = VALUES(uri), predicates = VALUES(predicates), filters = VALUES(filters), "
+            + "route_order = VALUES(route_order), enabled = VALUES(enabled), content_hash = VALUES(content_hash), updated_at = VALUES(updated_at)";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final int batchSize;
+
+    public R2dbcRouteStore(DatabaseClient databaseClient,
+                           ConnectionFactory connectionFactory,
+                           @Value("${gateway.admin.batch.jdbc-batch-size:500}") int batchSize) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Mono<RouteDefinitionEntity> findById(String id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM gateway_routes WHERE id = :id")
+                .bind("id", id)
+                .map(R2dbcRouteStore::toEntity)
+                .one();
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findAllById(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        // 集合参数会被展开为 IN (?, ?, ...)
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM gateway_routes WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(R2dbcRouteStore::toEntity)
+                .all();
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM gateway_routes")
+                .map(R2dbcRouteStore::toEntity)
+                .all();
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findEnabled() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM gateway_routes WHERE enabled = TRUE")
+                .map(R2dbcRouteStore::toEntity)
+                .all();
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> search(String query) {
+        String pattern = "%" + escapeLike(query.toLowerCase(Locale.ROOT)) + "%";
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM gateway_routes WHERE LOWER(id) LIKE :pattern OR LOWER(uri) LIKE :pattern")
+                .bind("pattern", pattern)
+                .map(R2dbcRouteStore::toEntity)
+                .all();
+    }
+
+    @Override
+    public Flux<RouteContentHash> findEnabledContentHashes() {
+        return databaseClient.sql("SELECT id, content_hash FROM gateway_routes WHERE enabled = TRUE")
+                .map(row -> new RouteContentHash(row.get("id", String.class), row.get("content_hash", String.class)))
+                .all();
+    }
+
+    @Override
+    public Flux<RouteDefinitionEntity> findPageAfter(String after, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM gateway_routes WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(R2dbcRouteStore::toEntity)
+                .all();
+    }
+
+    @Override
+    public Flux<RouteSummaryPayload> findSummariesAfter(String after, int limit) {
+        return databaseClient.sql("SELECT id, uri, route_order, enabled FROM gateway_routes WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(row -> new RouteSummaryPayload(row.get("id", String.class), row.get("uri", String.class),
+                        intValue(row, "route_order"), booleanValue(row, "enabled")))
+                .all();
+    }
+
+    @Override
+    public Mono<Void> save(RouteDefinitionEntity entity) {
+        // 不经过 JPA 的生命周期回调，内容哈希需要手动计算
+        entity.refreshContentHash();
+        return databaseClient.inConnectionMany(connection -> Flux.from(bind(connection.createStatement(UPSERT_SQL), entity).execute()))
+                .flatMap(result -> result.getRowsUpdated())
+                .then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return databaseClient.sql("DELETE FROM gateway_routes WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    @Override
+    public Mono<Integer> upsertAll(List<RouteDefinitionEntity> entities) {
+        entities.forEach(RouteDefinitionEntity::refreshContentHash);
+        // 每批使用一条语句携带多组参数，整个导入在一个事务中完成
+        Flux<Long> chunks = Flux.fromIterable(entities)
+                .buffer(batchSize)
+                .concatMap(chunk -> databaseClient.inConnectionMany(connection -> {
+                            Statement statement = connection.createStatement(UPSERT_SQL);
+                            for (int i = 0; i < chunk.size(); i++) {
+                                if (i > 0) {
+                                    statement.add();
+                                }
+                                bind(statement, chunk.get(i));
+                            }
+                            return Flux.from(statement.execute());
+                        })
+                        .flatMap(result -> result.getRowsUpdated()));
+        return transactionalOperator.transactional(chunks)
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Batch upserted {} routes into gateway_routes.", entities.size());
+                    return entities.size();
+                }));
+    }
+
+    private static Statement bind(Statement statement, RouteDefinitionEntity entity) {
+        statement.bind(0, entity.getId())
+                .bind(1, entity.getUri())
+                .bind(2, entity.getPredicates());
+        if (entity.getFilters() != null) {
+            statement.bind(3, entity.getFilters());
+        } else {
+            statement.bindNull(3, String.class);
+        }
+        return statement.bind(4, entity.getRouteOrder())
+                .bind(5, entity.isEnabled())
+                .bind(6, entity.getContentHash())
+                // 与 JPA 写入的 DATETIME 保持一致，使用 JVM 默认时区
+                .bind(7, LocalDateTime.ofInstant(entity.getUpdatedAt(), ZoneId.systemDefault()));
+    }
+
+    private static RouteDefinitionEntity toEntity(Readable row) {
+        RouteDefinitionEntity entity = new RouteDefinitionEntity();
+        entity.setId(row.get("id", String.class));
+        entity.setUri(row.get("uri", String.class));
+        entity.setPredicates(row.get("predicates", String.class));
+        entity.setFilters(row.get("filters", String.class));
+        entity.setRouteOrder(intValue(row, "route_order"));
+        entity.setEnabled(booleanValue(row, "enabled"));
+        entity.setContentHash(row.get("content_hash", String.class));
+        LocalDateTime updatedAt = row.get("updated_at", LocalDateTime.class);
+        entity.setUpdatedAt(updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant() : null);
+        return entity;
+    }
+
+    private static int intValue(Readable row, String column) {
+        Integer value = row.get(column, Integer.class);
+        return value != null ? value : 0;
+    }
+
+    private static boolean booleanValue(Readable row, String column) {
+        return Boolean.TRUE.equals(row.get(column, Boolean.class));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
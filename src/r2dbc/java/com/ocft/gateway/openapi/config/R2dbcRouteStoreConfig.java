@@ -0,0 +1,49 @@
+package com.ocft.gateway.openapi.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Connection pool for {@link com.ocft.gateway.openapi.admin.R2dbcRouteStore}, active with {@code gateway.routes.store=r2dbc}.
+ * <p>
+ * Built only with the Maven profile {@code r2dbc}. Spring Boot's own R2DBC auto-configuration is excluded in the profile's
+ * config/application.properties: it would also register a reactive transaction manager, and the JPA transaction manager
+ * backs off as soon as any transaction manager exists.
+ * Tenant and unit tables stay on JPA either way.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.routes", name = "store", havingValue = "r2dbc")
+public class R2dbcRouteStoreConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool routeStoreConnectionFactory(@Value("${gateway.routes.r2dbc.url}") String url,
+                                                      @Value("${gateway.routes.r2dbc.username}") String username,
+                                                      @Value("${gateway.routes.r2dbc.password}") String password,
+                                                      @Value("${gateway.routes.r2dbc.pool.max-size:10}") int maxSize,
+                                                      @Value("${gateway.routes.r2dbc.pool.max-idle-time:30m}") Duration maxIdleTime) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(1)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient routeStoreDatabaseClient(ConnectionFactory routeStoreConnectionFactory) {
+        return DatabaseClient.create(routeStoreConnectionFactory);
+    }
+}
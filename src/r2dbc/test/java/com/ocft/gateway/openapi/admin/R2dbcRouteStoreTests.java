@@ -0,0 +1,43 @@
+package com.ocft.gateway.openapi.admin;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.h2.H2ConnectionOption;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * {@link R2dbcRouteStore} 在 H2 (MySQL 兼容模式) 上的测试，需要使用 Maven profile {@code r2dbc} 运行。
+ * 批大小设为 2，使批量写入跨越多条语句，验证整批在一个事务中完成
+ */
+class R2dbcRouteStoreTests extends RouteStoreContractTests {
+
+    private static R2dbcRouteStore store;
+
+    @BeforeAll
+    static void createStore() {
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .inMemory("r2dbc_routes")
+                .property(H2ConnectionOption.DB_CLOSE_DELAY, "-1")
+                .property(H2ConnectionOption.MODE, "MySQL")
+                .build());
+        DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("CREATE TABLE IF NOT EXISTS gateway_routes ("
+                        + "id VARCHAR(100) NOT NULL PRIMARY KEY, "
+                        + "uri VARCHAR(2048) NOT NULL, "
+                        + "predicates VARCHAR(8192) NOT NULL, "
+                        + "filters VARCHAR(8192), "
+                        + "route_order INT NOT NULL DEFAULT 0, "
+                        + "enabled BOOLEAN NOT NULL DEFAULT TRUE, "
+                        + "content_hash VARCHAR(64), "
+                        + "updated_at TIMESTAMP(6))")
+                .then()
+                .block();
+        store = new R2dbcRouteStore(databaseClient, connectionFactory, 2);
+    }
+
+    @Override
+    protected RouteStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ocft.gateway.openapi.admin;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link JpaRouteStore} 在 H2 (MySQL 兼容模式) 上的测试，批量写入使用与生产相同的 {@code ON DUPLICATE KEY UPDATE} 语句
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jpa_routes;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaRouteStore.class, RouteBatchJdbcRepository.class})
+// 存储在弹性线程池上执行，测试方法的事务不会传播过去，每次写入都需要真正提交
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaRouteStoreTests extends RouteStoreContractTests {
+
+    @Autowired
+    private JpaRouteStore store;
+
+    @Override
+    protected RouteStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ocft.gateway.openapi.admin;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 所有 {@link RouteStore} 实现共用的行为测试，子类只负责提供连接到嵌入式数据库 (H2，MySQL 兼容模式) 的存储
+ */
+abstract class RouteStoreContractTests {
+
+    protected abstract RouteStore store();
+
+    @BeforeEach
+    void clearRoutes() {
+        store().findAll()
+                .concatMap(entity -> store().deleteById(entity.getId()))
+                .blockLast();
+    }
+
+    @Test
+    void upsertAllInsertsThenUpdatesRows() {
+        StepVerifier.create(store().upsertAll(List.of(route("a", "http://a"), route("b", "http://b"), route("c", "http://c"))))
+                .expectNext(3)
+                .verifyComplete();
+
+        RouteDefinitionEntity inserted = store().findById("a").block();
+        assertThat(inserted).isNotNull();
+        assertThat(inserted.getUri()).isEqualTo("http://a");
+        assertThat(inserted.getContentHash())
+                .isEqualTo(RouteDefinitionEntity.computeContentHash("http://a", inserted.getPredicates(), inserted.getFilters(), 0));
+
+        StepVerifier.create(store().upsertAll(List.of(route("a", "http://a2"))))
+                .expectNext(1)
+                .verifyComplete();
+
+        RouteDefinitionEntity updated = store().findById("a").block();
+        assertThat(updated.getUri()).isEqualTo("http://a2");
+        assertThat(updated.getContentHash()).isNotEqualTo(inserted.getContentHash());
+        assertThat(store().findAll().collectList().block()).hasSize(3);
+    }
+
+    @Test
+    void enabledQueriesSkipDisabledRoutes() {
+        RouteDefinitionEntity disabled = route("b", "http://b");
+        disabled.setEnabled(false);
+        store().upsertAll(List.of(route("a", "http://a"), disabled)).block();
+
+        assertThat(store().findEnabled().map(RouteDefinitionEntity::getId).collectList().block()).containsExactly("a");
+        List<RouteContentHash> hashes = store().findEnabledContentHashes().collectList().block();
+        assertThat(hashes).extracting(RouteContentHash::id).containsExactly("a");
+        assertThat(hashes.get(0).contentHash()).isEqualTo(store().findById("a").block().getContentHash());
+    }
+
+    @Test
+    void pagesThroughRoutesById() {
+        store().upsertAll(List.of(route("e", "http://e"), route("c", "http://c"), route("a", "http://a"),
+                route("d", "http://d"), route("b", "http://b"))).block();
+
+        assertThat(store().findPageAfter("", 2).map(RouteDefinitionEntity::getId).collectList().block()).containsExactly("a", "b");
+        assertThat(store().findPageAfter("b", 2).map(RouteDefinitionEntity::getId).collectList().block()).containsExactly("c", "d");
+        assertThat(store().findSummariesAfter("d", 2).collectList().block())
+                .containsExactly(new RouteSummaryPayload("e", "http://e", 0, true));
+    }
+
+    @Test
+    void searchMatchesIdOrUriIgnoringCase() {
+        store().upsertAll(List.of(route("orders-api", "http://orders"), route("users", "http://USERS.internal"),
+                route("billing", "http://billing"))).block();
+
+        assertThat(store().search("ORDERS").map(RouteDefinitionEntity::getId).collectList().block()).containsExactly("orders-api");
+        assertThat(store().search("users.int").map(RouteDefinitionEntity::getId).collectList().block()).containsExactly("users");
+        // LIKE 的通配符按字面匹配
+        assertThat(store().search("%").collectList().block()).isEmpty();
+    }
+
+    @Test
+    void findAllByIdReturnsOnlyRequestedRoutes() {
+        store().upsertAll(List.of(route("a", "http://a"), route("b", "http://b"), route("c", "http://c"))).block();
+
+        assertThat(store().findAllById(List.of("a", "c", "missing")).map(RouteDefinitionEntity::getId).collectList().block())
+                .containsExactlyInAnyOrder("a", "c");
+        assertThat(store().findAllById(List.of()).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void saveUpsertsSingleRouteAndDeleteRemovesIt() {
+        store().save(route("a", "http://a")).block();
+        RouteDefinitionEntity changed = store().findById("a").block();
+        changed.setRouteOrder(5);
+        store().save(changed).block();
+
+        RouteDefinitionEntity saved = store().findById("a").block();
+        assertThat(saved.getRouteOrder()).isEqualTo(5);
+        assertThat(saved.getContentHash())
+                .isEqualTo(RouteDefinitionEntity.computeContentHash("http://a", saved.getPredicates(), saved.getFilters(), 5));
+
+        store().deleteById("a").block();
+        StepVerifier.create(store().findById("a")).verifyComplete();
+    }
+
+    private static RouteDefinitionEntity route(String id, String uri) {
+        RouteDefinitionEntity entity = new RouteDefinitionEntity();
+        entity.setId(id);
+        entity.setUri(uri);
+        entity.setPredicates("[{\"name\":\"Path\",\"args\":{\"_genkey_0\":\"/" + id + "/**\"}}]");
+        entity.setFilters("[]");
+        return entity;
+    }
+}
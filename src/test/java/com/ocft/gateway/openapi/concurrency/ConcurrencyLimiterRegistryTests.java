@@ -0,0 +1,96 @@
+package com.ocft.gateway.openapi.concurrency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterRegistryTests {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void requestsOverTheLimitAreRejectedWithRetryAfter() {
+        ConcurrencyLimiterRegistry registry = registry(1, Duration.ofSeconds(2));
+        // 第一个请求一直占用唯一的许可
+        Disposable first = registry.filterRoute("orders", exchange(), pending()).subscribe();
+
+        MockServerWebExchange rejected = exchange();
+        registry.filterRoute("orders", rejected, pending()).block(Duration.ofSeconds(1));
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(calls).hasValue(1);
+        assertThat(routeSnapshot(registry)).containsEntry("rejected", 1L).containsEntry("inflight", 1);
+
+        // 取消的请求释放许可，但不计入样本
+        first.dispose();
+        assertThat(routeSnapshot(registry)).containsEntry("inflight", 0);
+        registry.filterRoute("orders", exchange(), chain(HttpStatus.OK)).block(Duration.ofSeconds(1));
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void retryAfterIsRoundedUpToOneSecond() {
+        ConcurrencyLimiterRegistry registry = registry(1, Duration.ofMillis(200));
+        registry.filterRoute("orders", exchange(), pending()).subscribe();
+
+        MockServerWebExchange rejected = exchange();
+        registry.filterRoute("orders", rejected, pending()).block(Duration.ofSeconds(1));
+
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    void overloadedResponsesBackOffTheLimit() {
+        ConcurrencyLimiterRegistry registry = registry(100, Duration.ofSeconds(1));
+
+        registry.filterRoute("orders", exchange(), chain(HttpStatus.OK)).block(Duration.ofSeconds(1));
+        assertThat(routeSnapshot(registry)).containsEntry("limit", 100).containsEntry("overloaded", 0L);
+
+        registry.filterRoute("orders", exchange(), chain(HttpStatus.SERVICE_UNAVAILABLE)).block(Duration.ofSeconds(1));
+        assertThat(routeSnapshot(registry)).containsEntry("limit", 90).containsEntry("overloaded", 1L);
+    }
+
+    /**
+     * 窗口长度为 0、每个窗口 1 个样本，每个请求结束时都会调整上限
+     */
+    private static ConcurrencyLimiterRegistry registry(int initialLimit, Duration retryAfter) {
+        return new ConcurrencyLimiterRegistry(true, initialLimit, 1, 1000, Duration.ZERO, 1, retryAfter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> routeSnapshot(ConcurrencyLimiterRegistry registry) {
+        Map<String, Object> routes = (Map<String, Object>) registry.snapshot().get("routes");
+        return (Map<String, Object>) routes.get("orders");
+    }
+
+    private GatewayFilterChain pending() {
+        return exchange -> {
+            calls.incrementAndGet();
+            return Mono.never();
+        };
+    }
+
+    private GatewayFilterChain chain(HttpStatus status) {
+        return exchange -> {
+            calls.incrementAndGet();
+            exchange.getResponse().setStatusCode(status);
+            return Mono.empty();
+        };
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://gateway/orders/1"));
+    }
+}
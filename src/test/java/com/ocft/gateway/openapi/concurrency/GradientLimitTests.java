@@ -0,0 +1,109 @@
+package com.ocft.gateway.openapi.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 窗口长度为 0、每个窗口 1 个样本，每次 {@link #window} 都会结束一个窗口并调整上限
+ */
+class GradientLimitTests {
+
+    @Test
+    void dropsBackOffByTenPercent() {
+        GradientLimit limit = new GradientLimit(100, 10, 1000, 0, 1);
+
+        window(limit, 100, 10, true);
+        assertThat(limit.getLimit()).isEqualTo(90);
+        window(limit, 90, 10, true);
+        assertThat(limit.getLimit()).isEqualTo(81);
+    }
+
+    @Test
+    void limitDoesNotGrowWhenLessThanHalfUtilised() {
+        GradientLimit limit = new GradientLimit(100, 10, 1000, 0, 1);
+
+        for (int i = 0; i < 10; i++) {
+            window(limit, 49, 10, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(100);
+
+        // 用到一半时开始增长：gradient = 1，100 * 0.8 + (100 + sqrt(100)) * 0.2 = 102
+        window(limit, 50, 10, false);
+        assertThat(limit.getLimit()).isEqualTo(102);
+    }
+
+    @Test
+    void slowerWindowShrinksLimitByGradient() {
+        GradientLimit limit = new GradientLimit(100, 10, 1000, 0, 1);
+        // 低利用率的窗口只建立长期 RTT，不改变上限
+        window(limit, 0, 10, false);
+        assertThat(limit.getLimit()).isEqualTo(100);
+
+        // 长期 RTT = 10 + (100 - 10) / 20 = 14.5ms，gradient = 1.5 * 14.5 / 100 限制到 0.5，
+        // 100 * 0.8 + (100 * 0.5 + 10) * 0.2 = 92
+        window(limit, 100, 100, false);
+        assertThat(limit.getLimit()).isEqualTo(92);
+        assertThat(limit.history().get(1).longRttMs()).isEqualTo(14.5);
+    }
+
+    @Test
+    void limitIsClampedToMinAndMax() {
+        assertThat(new GradientLimit(5000, 10, 2000, 0, 1).getLimit()).isEqualTo(2000);
+        assertThat(new GradientLimit(1, 10, 2000, 0, 1).getLimit()).isEqualTo(10);
+
+        GradientLimit shrinking = new GradientLimit(20, 10, 1000, 0, 1);
+        for (int i = 0; i < 20; i++) {
+            window(shrinking, 20, 10, true);
+        }
+        assertThat(shrinking.getLimit()).isEqualTo(10);
+
+        GradientLimit growing = new GradientLimit(100, 10, 105, 0, 1);
+        for (int i = 0; i < 20; i++) {
+            window(growing, growing.getLimit(), 10, false);
+        }
+        assertThat(growing.getLimit()).isEqualTo(105);
+    }
+
+    @Test
+    void windowEndsOnlyAfterMinSamples() {
+        GradientLimit limit = new GradientLimit(100, 10, 1000, 0, 3);
+
+        window(limit, 100, 10, true);
+        window(limit, 100, 10, true);
+        assertThat(limit.getLimit()).isEqualTo(100);
+        assertThat(limit.history()).isEmpty();
+
+        window(limit, 100, 10, true);
+        assertThat(limit.getLimit()).isEqualTo(90);
+        assertThat(limit.history()).hasSize(1);
+    }
+
+    @Test
+    void historyKeepsTheLatestUpdatesOldestFirst() {
+        GradientLimit limit = new GradientLimit(100, 10, 1000, 0, 1);
+        assertThat(limit.history()).isEmpty();
+
+        int windows = GradientLimit.HISTORY_SIZE + 5;
+        for (int i = 1; i <= windows; i++) {
+            window(limit, 0, i, false);
+        }
+
+        // 环形缓冲区已经绕回，最早的 5 次调整被覆盖
+        List<GradientLimit.Sample> history = limit.history();
+        assertThat(history).hasSize(GradientLimit.HISTORY_SIZE);
+        assertThat(history).extracting(GradientLimit.Sample::rttMs)
+                .startsWith(6.0, 7.0)
+                .endsWith((double) windows)
+                .isSorted();
+        assertThat(history).extracting(GradientLimit.Sample::timestamp).isSorted();
+    }
+
+    private static void window(GradientLimit limit, int peakInflight, long rttMillis, boolean dropped) {
+        limit.recordInflight(peakInflight);
+        limit.onSample(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped);
+    }
+}
@@ -0,0 +1,148 @@
+package com.ocft.gateway.openapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.handler.AsyncPredicate;
+import org.springframework.cloud.gateway.handler.predicate.HeaderRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.HostRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.MethodRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用真实的断言工厂构建路由，对比索引查找与默认实现 (按顺序对全部路由执行断言) 的结果
+ */
+class RouteMatchIndexTests {
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, RouteDefinition> definitions = new LinkedHashMap<>();
+
+    @Test
+    void literalPrefixStopsAtFirstPatternSegment() {
+        assertThat(RouteMatchIndex.literalPrefix("/api/orders/{id}/**")).containsExactly("api", "orders");
+        assertThat(RouteMatchIndex.literalPrefix("/api/ord*/list")).containsExactly("api");
+        assertThat(RouteMatchIndex.literalPrefix("/**")).isEmpty();
+        assertThat(RouteMatchIndex.literalPrefix("/api/items")).containsExactly("api", "items");
+    }
+
+    @Test
+    void candidatesSelectTheSameRouteAsTheLinearScan() {
+        route("orders-by-id", "Path=/api/orders/{id}");
+        route("orders-admin", "Path=/api/orders/admin/**", "Method=POST,DELETE");
+        route("orders", "Path=/api/orders/**");
+        route("items-or-stock", "Path=/api/items/**,/api/stock/*");
+        route("wildcard-segment", "Path=/api/ord*/report");
+        route("tenant-header", "Header=X-Tenant-ID, t-\\d+");
+        route("partner-host", "Host=partner.example.com", "Path=/api/**");
+        route("any-partner-host", "Host=**.partner.io");
+        route("get-only", "Method=GET", "Path=/public/{file}");
+        route("catch-all", "Path=/**");
+        RouteMatchIndex index = RouteMatchIndex.build(routes, definitions);
+
+        List<MockServerHttpRequest> requests = List.of(
+                request(HttpMethod.GET, "/api/orders/1", "gateway.local"),
+                request(HttpMethod.GET, "/api/orders/1/lines", "gateway.local"),
+                request(HttpMethod.POST, "/api/orders/admin/purge", "gateway.local"),
+                request(HttpMethod.GET, "/api/orders/admin/purge", "gateway.local"),
+                request(HttpMethod.GET, "/api/orders", "gateway.local"),
+                request(HttpMethod.GET, "/api/orders/", "gateway.local"),
+                request(HttpMethod.GET, "/api/items/9", "gateway.local"),
+                request(HttpMethod.GET, "/api/stock/9", "gateway.local"),
+                request(HttpMethod.GET, "/api/stock/9/history", "gateway.local"),
+                request(HttpMethod.GET, "/api/orderz/report", "gateway.local"),
+                request(HttpMethod.GET, "/api/users", "partner.example.com"),
+                request(HttpMethod.GET, "/api/users", "partner.example.com:8443"),
+                request(HttpMethod.GET, "/other", "eu.partner.io"),
+                request(HttpMethod.GET, "/public/logo.png", "gateway.local"),
+                request(HttpMethod.HEAD, "/public/logo.png", "gateway.local"),
+                request(HttpMethod.GET, "/", "gateway.local"),
+                MockServerHttpRequest.get("/nothing/here").header(HttpHeaders.HOST, "gateway.local")
+                        .header("X-Tenant-ID", "t-42").build());
+
+        for (MockServerHttpRequest request : requests) {
+            List<Route> candidates = index.candidates(request);
+            List<Route> matching = routes.stream().filter(route -> matches(route, request)).toList();
+
+            // 候选集合包含所有能匹配的路由，并保持原来的顺序，因此按顺序执行断言得到的第一个路由相同
+            assertThat(candidates).as(describe(request)).containsAll(matching);
+            assertThat(routes).as(describe(request)).containsSubsequence(candidates);
+            Optional<Route> expected = matching.stream().findFirst();
+            Optional<Route> actual = candidates.stream().filter(route -> matches(route, request)).findFirst();
+            assertThat(actual.map(Route::getId)).as(describe(request)).isEqualTo(expected.map(Route::getId));
+        }
+    }
+
+    @Test
+    void indexNarrowsCandidatesByPathHostAndMethod() {
+        route("orders", "Path=/api/orders/**");
+        route("items", "Path=/api/items/**");
+        route("partner", "Host=partner.example.com");
+        route("deletes", "Method=DELETE");
+        RouteMatchIndex index = RouteMatchIndex.build(routes, definitions);
+
+        assertThat(index.getRouteCount()).isEqualTo(4);
+        assertThat(index.getUnindexedCount()).isEqualTo(2);
+        assertThat(index.candidates(request(HttpMethod.GET, "/api/items/1", "gateway.local")))
+                .extracting(Route::getId).containsExactly("items");
+        assertThat(index.candidates(request(HttpMethod.DELETE, "/api/items/1", "partner.example.com")))
+                .extracting(Route::getId).containsExactly("items", "partner", "deletes");
+    }
+
+    /**
+     * 与 RouteDefinitionRouteLocator 相同：每个断言由对应的工厂创建，多个断言之间是"与"的关系
+     */
+    private void route(String id, String... predicates) {
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setUri(URI.create("http://" + id));
+        AsyncPredicate<ServerWebExchange> combined = null;
+        for (String text : predicates) {
+            PredicateDefinition predicate = new PredicateDefinition(text);
+            definition.getPredicates().add(predicate);
+            List<String> args = new ArrayList<>(predicate.getArgs().values());
+            AsyncPredicate<ServerWebExchange> created = switch (predicate.getName()) {
+                case "Path" -> new PathRoutePredicateFactory().applyAsync(new PathRoutePredicateFactory.Config().setPatterns(args));
+                case "Host" -> new HostRoutePredicateFactory().applyAsync(new HostRoutePredicateFactory.Config().setPatterns(args));
+                case "Method" -> {
+                    MethodRoutePredicateFactory.Config config = new MethodRoutePredicateFactory.Config();
+                    config.setMethods(args.stream().map(HttpMethod::valueOf).toArray(HttpMethod[]::new));
+                    yield new MethodRoutePredicateFactory().applyAsync(config);
+                }
+                case "Header" -> new HeaderRoutePredicateFactory()
+                        .applyAsync(new HeaderRoutePredicateFactory.Config().setHeader(args.get(0)).setRegexp(args.get(1)));
+                default -> throw new IllegalArgumentException(predicate.getName());
+            };
+            combined = combined == null ? created : combined.and(created);
+        }
+        definitions.put(id, definition);
+        routes.add(Route.async(definition).asyncPredicate(combined).build());
+    }
+
+    private static boolean matches(Route route, MockServerHttpRequest request) {
+        return Boolean.TRUE.equals(Mono.from(route.getPredicate().apply(MockServerWebExchange.from(request))).block());
+    }
+
+    private static MockServerHttpRequest request(HttpMethod method, String path, String host) {
+        return MockServerHttpRequest.method(method, URI.create(path)).header(HttpHeaders.HOST, host).build();
+    }
+
+    private static String describe(MockServerHttpRequest request) {
+        return request.getMethod() + " " + request.getHeaders().getFirst(HttpHeaders.HOST) + request.getURI();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ocft.gateway.openapi.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalesceRequestsGatewayFilterFactoryTests {
+
+    private static final int CONCURRENCY = 10;
+
+    private StubUpstream upstream;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // 后端足够慢，所有请求都在 leader 的响应到达之前发出
+        upstream = new StubUpstream("{\"id\":1}", Duration.ofMillis(200));
+        upstream.headers().setContentType(MediaType.APPLICATION_JSON);
+        filter = new CoalesceRequestsGatewayFilterFactory().apply(new CoalesceRequestsGatewayFilterFactory.Config());
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCall() {
+        List<MockServerWebExchange> exchanges = Flux.range(0, CONCURRENCY)
+                .flatMap(i -> upstream.exchange(filter, request("tenant-1")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(upstream.calls()).isEqualTo(1);
+        assertThat(exchanges).hasSize(CONCURRENCY)
+                .allSatisfy(exchange -> assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}"));
+    }
+
+    @Test
+    void differentTenantsAreNotCoalesced() {
+        Flux.merge(upstream.exchange(filter, request("tenant-1")), upstream.exchange(filter, request("tenant-2")))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstream.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void followersCallUpstreamThemselvesWhenResponseCannotBeShared() {
+        upstream.headers().add(HttpHeaders.SET_COOKIE, "session=abc");
+
+        List<MockServerWebExchange> exchanges = Flux.range(0, CONCURRENCY)
+                .flatMap(i -> upstream.exchange(filter, request("tenant-1")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(upstream.calls()).isEqualTo(CONCURRENCY);
+        assertThat(exchanges).allSatisfy(exchange -> assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}"));
+    }
+
+    private static MockServerHttpRequest request(String tenant) {
+        return MockServerHttpRequest.get("http://gateway/items/1")
+                .header("X-Tenant-ID", tenant)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+}
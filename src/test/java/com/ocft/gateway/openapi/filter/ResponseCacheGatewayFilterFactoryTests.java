@@ -0,0 +1,68 @@
+package com.ocft.gateway.openapi.filter;
+
+import com.ocft.gateway.openapi.cache.ResponseCacheStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterFactoryTests {
+
+    private StubUpstream upstream;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        upstream = new StubUpstream("{\"id\":1}", Duration.ZERO);
+        upstream.headers().setContentType(MediaType.APPLICATION_JSON);
+        upstream.headers().setCacheControl("max-age=60");
+        filter = new ResponseCacheGatewayFilterFactory(new ResponseCacheStore(DataSize.ofMegabytes(1), false))
+                .apply(new ResponseCacheGatewayFilterFactory.Config());
+    }
+
+    @Test
+    void secondRequestIsServedFromCacheWithoutCallingUpstream() {
+        MockServerWebExchange first = upstream.exchange(filter, request("tenant-1")).block();
+        assertThat(first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER)).isEqualTo("MISS");
+        assertThat(first.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}");
+
+        MockServerWebExchange second = upstream.exchange(filter, request("tenant-1")).block();
+        assertThat(upstream.calls()).isEqualTo(1);
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void tenantsDoNotShareEntries() {
+        upstream.exchange(filter, request("tenant-1")).block();
+        MockServerWebExchange other = upstream.exchange(filter, request("tenant-2")).block();
+
+        assertThat(upstream.calls()).isEqualTo(2);
+        assertThat(other.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER)).isEqualTo("MISS");
+    }
+
+    @Test
+    void uncacheableResponsesAlwaysGoUpstream() {
+        upstream.headers().setCacheControl("no-store");
+
+        upstream.exchange(filter, request("tenant-1")).block();
+        upstream.exchange(filter, request("tenant-1")).block();
+
+        assertThat(upstream.calls()).isEqualTo(2);
+    }
+
+    private static MockServerHttpRequest request(String tenant) {
+        return MockServerHttpRequest.get("http://gateway/items/1")
+                .header("X-Tenant-ID", tenant)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+}
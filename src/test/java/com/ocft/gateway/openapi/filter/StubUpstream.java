@@ -0,0 +1,113 @@
+package com.ocft.gateway.openapi.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的后端：代替 NettyRoutingFilter 和 NettyWriteResponseFilter，在它们原来的顺序上设置响应头、写出响应体，
+ * 并记录访问后端的次数。路由过滤器与它们一起经过 {@link FilteringWebHandler} 按顺序排列，与网关中的执行顺序一致
+ */
+final class StubUpstream {
+
+    private static final String BODY_ATTR = StubUpstream.class.getName() + ".body";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final HttpHeaders headers = new HttpHeaders();
+    private final String body;
+    private final Duration latency;
+    private final FilteringWebHandler handler;
+
+    StubUpstream(String body, Duration latency) {
+        this.body = body;
+        this.latency = latency;
+        this.handler = new FilteringWebHandler(List.of(new WriteResponse(), new Routing()));
+    }
+
+    HttpHeaders headers() {
+        return headers;
+    }
+
+    int calls() {
+        return calls.get();
+    }
+
+    /**
+     * 让请求经过只有一个路由过滤器的路由
+     */
+    Mono<MockServerWebExchange> exchange(GatewayFilter routeFilter, MockServerHttpRequest request) {
+        Route route = Route.async()
+                .id("test-route")
+                .uri(URI.create("http://upstream"))
+                .predicate(exchange -> true)
+                .filter(routeFilter)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return handler.handle(exchange).thenReturn(exchange);
+    }
+
+    /**
+     * 相当于 NettyRoutingFilter：访问后端，设置状态码和响应头
+     */
+    private final class Routing implements GlobalFilter, Ordered {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            calls.incrementAndGet();
+            return Mono.delay(latency).then(Mono.<Void>fromRunnable(() -> {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().putAll(headers);
+                response.getHeaders().setContentLength(body.length());
+                exchange.getAttributes().put(BODY_ATTR, body);
+            }));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * 相当于 NettyWriteResponseFilter：后续过滤器完成后，把响应体写到它收到的 exchange 的响应上
+     */
+    private static final class WriteResponse implements GlobalFilter, Ordered {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            return chain.filter(exchange).then(Mono.defer(() -> {
+                String body = exchange.getAttribute(BODY_ATTR);
+                if (body == null) {
+                    return Mono.empty();
+                }
+                ServerHttpResponse response = exchange.getResponse();
+                return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+            }));
+        }
+
+        @Override
+        public int getOrder() {
+            return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import com.ocft.gateway.openapi.hedge.HedgePolicy;
+import com.ocft.gateway.openapi.unit.UnitConnectionPools;
+import com.ocft.gateway.openapi.unit.UnitGatewayRegistry;
+import com.ocft.gateway.openapi.unit.UnitInstance;
+import com.ocft.gateway.openapi.unit.UnitSelectionGatewayFilterFactory;
+import com.ocft.gateway.openapi.unit.UnitTarget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class HedgingRoutingGlobalFilterTests {
+
+    private static final String UNIT = "LA";
+
+    private final UnitGatewayRegistry unitRegistry = mock(UnitGatewayRegistry.class);
+    private final HedgePolicy policy = mock(HedgePolicy.class);
+    private final GatewayFilterChain chain = mock(GatewayFilterChain.class);
+    private final AtomicInteger calls = new AtomicInteger();
+    private HedgingRoutingGlobalFilter filter;
+    private DisposableServer slow;
+    private DisposableServer fast;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        slow = upstream("slow", Duration.ofSeconds(1));
+        fast = upstream("fast", Duration.ZERO);
+        filter = new HedgingRoutingGlobalFilter(HttpClient.create(), mock(ObjectProvider.class), unitRegistry,
+                mock(UnitConnectionPools.class), new HttpClientProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        slow.disposeNow();
+        fast.disposeNow();
+    }
+
+    @Test
+    void hedgeWinsWhenPrimaryIsSlowAndPrimaryLatencyIsRecorded() {
+        when(policy.admit()).thenReturn(TimeUnit.MILLISECONDS.toNanos(50));
+        when(policy.tryHedge()).thenReturn(true);
+        MockServerWebExchange exchange = unitExchange(uri(slow), uri(fast));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        verify(policy).recordHedgeWin();
+        // 记录的是输掉的首个请求已经等待的时间，不是胜出的对冲请求的
+        ArgumentCaptor<Long> latency = ArgumentCaptor.forClass(Long.class);
+        verify(policy).recordLatency(latency.capture());
+        assertThat(latency.getValue()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void primaryFailureSendsHedgeToAlternateWithoutWaiting() throws IOException {
+        // 对冲等待时间远大于 block 的时限，只有首个请求失败后立即发出对冲请求才能及时完成
+        when(policy.admit()).thenReturn(TimeUnit.SECONDS.toNanos(10));
+        when(policy.tryHedge()).thenReturn(true);
+        MockServerWebExchange exchange = unitExchange(unusedPortUri(), uri(fast));
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        verify(policy).recordHedgeWin();
+        verify(policy, never()).recordLatency(anyLong());
+    }
+
+    @Test
+    void primaryErrorIsReturnedWhenNoHedgeSucceeds() throws IOException {
+        when(policy.admit()).thenReturn(TimeUnit.MILLISECONDS.toNanos(50));
+        when(policy.tryHedge()).thenReturn(false);
+        MockServerWebExchange exchange = exchange(unusedPortUri(), Map.of());
+
+        assertThatThrownBy(() -> filter.filter(exchange, chain).block(Duration.ofSeconds(5)))
+                .isInstanceOf(WebClientRequestException.class);
+        verify(policy, never()).recordHedgeWin();
+    }
+
+    @Test
+    void routeResponseTimeoutOverridesGlobalSetting() {
+        when(policy.admit()).thenReturn(TimeUnit.SECONDS.toNanos(10));
+        MockServerWebExchange exchange = exchange(uri(slow), Map.of(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, 100));
+
+        long startNanos = System.nanoTime();
+        assertThatThrownBy(() -> filter.filter(exchange, chain).block(Duration.ofSeconds(5)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        error -> assertThat(error.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT));
+        assertThat(System.nanoTime() - startNanos).isLessThan(TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    void requestsWithoutEnoughSamplesGoThroughTheChain() {
+        when(policy.admit()).thenReturn(-1L);
+        when(chain.filter(any())).thenReturn(Mono.empty());
+        MockServerWebExchange exchange = exchange(uri(fast), Map.of());
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        verify(chain).filter(exchange);
+        verify(policy).recordLatency(anyLong());
+        assertThat(calls).hasValue(0);
+    }
+
+    private MockServerWebExchange exchange(URI requestUrl, Map<String, Object> metadata) {
+        Route route = Route.async()
+                .id("test-route")
+                .uri(requestUrl)
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://gateway/items/1"));
+        exchange.getAttributes().put(HedgingRoutingGlobalFilter.HEDGE_POLICY_ATTR, policy);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, requestUrl);
+        return exchange;
+    }
+
+    /**
+     * 经 UnitSelection 转发到 {@code primaryUrl} 的请求，单元中的另一个实例在 {@code alternateUrl}
+     */
+    private MockServerWebExchange unitExchange(URI primaryUrl, URI alternateUrl) {
+        UnitInstance primary = instance(primaryUrl);
+        UnitInstance alternate = instance(alternateUrl);
+        UnitTarget target = mock(UnitTarget.class);
+        when(target.alternate(primary)).thenReturn(alternate);
+        when(unitRegistry.lookup(UNIT)).thenReturn(target);
+        MockServerWebExchange exchange = exchange(primaryUrl, Map.of());
+        exchange.getAttributes().put(UnitSelectionGatewayFilterFactory.UNIT_ATTR, UNIT);
+        exchange.getAttributes().put(UnitSelectionGatewayFilterFactory.UNIT_INSTANCE_ATTR, primary);
+        return exchange;
+    }
+
+    private static UnitInstance instance(URI gatewayUri) {
+        UnitInstance instance = mock(UnitInstance.class);
+        when(instance.getGatewayUri()).thenReturn(gatewayUri);
+        return instance;
+    }
+
+    /**
+     * 固定延迟后以自己的名字作为响应体的后端
+     */
+    private DisposableServer upstream(String name, Duration latency) {
+        return HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    calls.incrementAndGet();
+                    return Mono.delay(latency).then(response.sendString(Mono.just(name)).then());
+                })
+                .bindNow();
+    }
+
+    private static URI uri(DisposableServer server) {
+        return URI.create("http://localhost:" + server.port() + "/items/1");
+    }
+
+    private static URI unusedPortUri() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return URI.create("http://localhost:" + socket.getLocalPort() + "/items/1");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ocft.gateway.openapi.filter.global;
+
+import com.ocft.gateway.openapi.unit.UnitConnectionPools;
+import com.ocft.gateway.openapi.unit.UnitInstance;
+import com.ocft.gateway.openapi.unit.UnitSelectionGatewayFilterFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UnitPoolRoutingFilterTests {
+
+    private final HttpClient defaultClient = HttpClient.create();
+    private final UnitConnectionPools connectionPools = mock(UnitConnectionPools.class);
+    @SuppressWarnings("unchecked")
+    private final UnitPoolRoutingFilter filter = new UnitPoolRoutingFilter(defaultClient, mock(ObjectProvider.class),
+            new HttpClientProperties(), connectionPools);
+    private final Route route = Route.async()
+            .id("test-route")
+            .uri(URI.create("http://upstream"))
+            .predicate(exchange -> true)
+            .build();
+
+    @Test
+    void nonUnitRouteUsesDefaultClient() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://gateway/items/1"));
+
+        assertThat(filter.getHttpClient(route, exchange)).isSameAs(defaultClient);
+        verifyNoInteractions(connectionPools);
+    }
+
+    @Test
+    void unitRouteUsesInstancePool() {
+        UnitInstance instance = mock(UnitInstance.class);
+        HttpClient poolClient = HttpClient.create();
+        when(connectionPools.httpClient(instance)).thenReturn(poolClient);
+
+        assertThat(filter.getHttpClient(route, exchange(instance))).isSameAs(poolClient);
+    }
+
+    @Test
+    void removedInstanceFallsBackToDefaultClient() {
+        UnitInstance instance = mock(UnitInstance.class);
+        when(connectionPools.httpClient(instance)).thenReturn(null);
+
+        assertThat(filter.getHttpClient(route, exchange(instance))).isSameAs(defaultClient);
+    }
+
+    private static MockServerWebExchange exchange(UnitInstance instance) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://gateway/items/1"));
+        exchange.getAttributes().put(UnitSelectionGatewayFilterFactory.UNIT_INSTANCE_ATTR, instance);
+        return exchange;
+    }
+}
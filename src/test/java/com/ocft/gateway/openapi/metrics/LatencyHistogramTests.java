@@ -0,0 +1,88 @@
+package com.ocft.gateway.openapi.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTests {
+
+    @Test
+    void smallValuesHaveOneBucketEach() {
+        for (long micros = 0; micros < 32; micros++) {
+            assertThat(LatencyHistogram.indexOf(micros)).isEqualTo((int) micros);
+            assertThat(LatencyHistogram.upperBound((int) micros)).isEqualTo(micros);
+        }
+        // 32 之后每个桶覆盖两个值
+        assertThat(LatencyHistogram.indexOf(32)).isEqualTo(32);
+        assertThat(LatencyHistogram.indexOf(33)).isEqualTo(32);
+        assertThat(LatencyHistogram.indexOf(34)).isEqualTo(33);
+        assertThat(LatencyHistogram.upperBound(32)).isEqualTo(33);
+    }
+
+    @Test
+    void bucketsAreContiguousAndWithinRelativeError() {
+        int previous = -1;
+        for (long micros = 0; micros <= 1 << 20; micros++) {
+            int index = LatencyHistogram.indexOf(micros);
+            assertThat(index).isBetween(previous, previous + 1);
+            if (index != previous && index > 0) {
+                // 新桶从上一个桶的上界之后开始
+                assertThat(LatencyHistogram.upperBound(index - 1)).isEqualTo(micros - 1);
+            }
+            long upper = LatencyHistogram.upperBound(index);
+            assertThat(upper).isGreaterThanOrEqualTo(micros);
+            assertThat(upper - micros).isLessThanOrEqualTo(Math.max(0, micros / 16));
+            previous = index;
+        }
+    }
+
+    @Test
+    void maxValueFitsInLastBucket() {
+        int last = LatencyHistogram.indexOf(LatencyHistogram.MAX_MICROS);
+        assertThat(last).isEqualTo(383);
+        assertThat(LatencyHistogram.upperBound(last)).isEqualTo(LatencyHistogram.MAX_MICROS);
+    }
+
+    @Test
+    void percentilesOfUniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.recordNanos(millis * 1_000_000L);
+        }
+
+        LatencyHistogram.Summary summary = histogram.summarize();
+        assertThat(summary.count()).isEqualTo(1000);
+        assertThat(summary.p50()).isCloseTo(500, within(500 / 16.0));
+        assertThat(summary.p99()).isCloseTo(990, within(990 / 16.0));
+        assertThat(summary.p999()).isCloseTo(999, within(999 / 16.0));
+        assertThat(summary.max()).isEqualTo(1000);
+        // 分位数不超过最大值
+        assertThat(summary.p999()).isLessThanOrEqualTo(summary.max());
+    }
+
+    @Test
+    void valuesAboveTheRangeAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(Long.MAX_VALUE);
+        histogram.recordNanos(-5);
+
+        LatencyHistogram.Summary summary = histogram.summarize();
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.max()).isEqualTo(LatencyHistogram.MAX_MICROS / 1000.0);
+        assertThat(summary.p50()).isEqualTo(0);
+    }
+
+    @Test
+    void percentileRequiresMinimumSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.percentileMicros(0.95, 1)).isEqualTo(-1);
+        assertThat(histogram.summarize()).isEqualTo(new LatencyHistogram.Summary(0, 0, 0, 0, 0));
+
+        for (int i = 0; i < 10; i++) {
+            histogram.recordNanos(20_000);
+        }
+        assertThat(histogram.percentileMicros(0.95, 20)).isEqualTo(-1);
+        assertThat(histogram.percentileMicros(0.95, 10)).isEqualTo(20);
+    }
+}
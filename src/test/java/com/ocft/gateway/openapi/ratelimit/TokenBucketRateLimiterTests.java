@@ -0,0 +1,154 @@
+package com.ocft.gateway.openapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Redis 用桩代替：租借脚本按 {@link #grants} 中的顺序返回发放的令牌数，并记录每次调用的参数
+ */
+class TokenBucketRateLimiterTests {
+
+    private static final TokenBucketLimits LIMITS = new TokenBucketLimits(100, 10, 10);
+
+    private final ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+    private final List<List<?>> scriptArgs = new ArrayList<>();
+    private final AtomicInteger scriptCalls = new AtomicInteger();
+    private final List<Flux<Long>> grants = new ArrayList<>();
+
+    private TokenBucketRateLimiter limiter(Duration leaseTtl) {
+        return limiter(leaseTtl, Duration.ofSeconds(2));
+    }
+
+    private TokenBucketRateLimiter limiter(Duration leaseTtl, Duration returnInterval) {
+        doAnswer(invocation -> Flux.defer(() -> {
+            int call = scriptCalls.getAndIncrement();
+            scriptArgs.add(invocation.getArgument(2));
+            return grants.get(Math.min(call, grants.size() - 1));
+        })).when(redisTemplate).execute(any(), anyList(), anyList());
+        return new TokenBucketRateLimiter(redisTemplate, leaseTtl, 1000, Duration.ofMinutes(10), returnInterval);
+    }
+
+    @Test
+    void concurrentRequestsShareOneLease() {
+        // 租借需要一段时间，期间到达的请求都应该等待同一次租借
+        grants.add(Flux.just(10L).delaySubscription(Duration.ofMillis(100)));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMinutes(1));
+
+        List<Boolean> results = Flux.range(0, 10)
+                .flatMap(i -> limiter.tryAcquire("orders", LIMITS))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(results).hasSize(10).containsOnly(true);
+        assertThat(scriptCalls).hasValue(1);
+        assertThat(limiter.getStats()).containsEntry("leases", 1L).containsEntry("allowed", 10L);
+    }
+
+    @Test
+    void usedUpLeaseIsRenewed() {
+        grants.add(Flux.just(2L));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+        }
+
+        assertThat(scriptCalls).hasValue(3);
+    }
+
+    @Test
+    void emptyBucketRejectsLocallyWithoutCallingRedis() {
+        grants.add(Flux.just(0L));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMinutes(1));
+
+        assertThat(limiter.tryAcquire("orders", LIMITS).block()).isFalse();
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("orders", LIMITS).block()).isFalse();
+        }
+
+        // 补充一批 (10 个，每秒 10 个) 大约需要 1 秒，在此之前只在本地拒绝
+        assertThat(scriptCalls).hasValue(1);
+        assertThat(limiter.getStats()).containsEntry("emptyLeases", 1L).containsEntry("rejected", 6L);
+    }
+
+    @Test
+    void redisFailureFailsOpenWithALocalLease() {
+        grants.add(Flux.error(new RedisConnectionFailureException("down")));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMinutes(1));
+
+        for (int i = 0; i < LIMITS.leaseSize(); i++) {
+            assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+        }
+
+        // 本地发放的一批令牌用完之前不再访问 Redis
+        assertThat(scriptCalls).hasValue(1);
+        assertThat(limiter.getStats()).containsEntry("leaseErrors", 1L).containsEntry("allowed", (long) LIMITS.leaseSize());
+    }
+
+    @Test
+    void expiredLeaseReturnsUnusedTokensWithNextLease() {
+        grants.add(Flux.just(10L));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMillis(50));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+        }
+        Mono.delay(Duration.ofMillis(100)).block();
+        assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+
+        assertThat(scriptCalls).hasValue(2);
+        // ARGV: 容量、补充速度、租借数量、归还的令牌数
+        assertThat(scriptArgs.get(0).get(3)).isEqualTo("0");
+        assertThat(scriptArgs.get(1).get(3)).isEqualTo("7");
+        assertThat(limiter.getStats()).containsEntry("returnedTokens", 7L);
+    }
+
+    @Test
+    void tokensLeasedDuringAnOutageAreNotReturned() {
+        grants.add(Flux.error(new RedisConnectionFailureException("down")));
+        grants.add(Flux.just(10L));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMillis(50));
+
+        assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+        Mono.delay(Duration.ofMillis(100)).block();
+        assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+
+        assertThat(scriptArgs.get(1).get(3)).isEqualTo("0");
+    }
+
+    @Test
+    void sweepReturnsTokensOfIdleBuckets() {
+        // 第二次调用是归还脚本，返回 1 表示已归还
+        grants.add(Flux.just(10L));
+        grants.add(Flux.just(1L));
+        TokenBucketRateLimiter limiter = limiter(Duration.ofMillis(50), Duration.ofMillis(100));
+        limiter.startReturnSweep();
+        try {
+            for (int i = 0; i < 4; i++) {
+                assertThat(limiter.tryAcquire("orders", LIMITS).block()).isTrue();
+            }
+            Mono.delay(Duration.ofMillis(500)).block();
+        } finally {
+            limiter.stopReturnSweep();
+        }
+
+        // 归还脚本的参数：容量、归还的令牌数；之后桶里没有剩余令牌，不会重复归还
+        assertThat(scriptCalls).hasValue(2);
+        assertThat(scriptArgs.get(1)).isEqualTo(List.of(String.valueOf(LIMITS.burst()), "6"));
+        assertThat(limiter.getStats()).containsEntry("returnedTokens", 6L);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ocft.gateway.openapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenLeaseTests {
+
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void newLeaseHasNoTokens() {
+        TokenLease lease = new TokenLease(4);
+
+        assertThat(lease.isExpired()).isTrue();
+        assertThat(lease.tryAcquire()).isFalse();
+        assertThat(lease.drain()).isZero();
+    }
+
+    @Test
+    void everyGrantedTokenCanBeAcquiredOnceAcrossStripes() {
+        TokenLease lease = new TokenLease(4);
+        // 10 不能被 4 整除，余数分到前两个计数器上
+        lease.refill(10, TTL_NANOS);
+
+        int acquired = 0;
+        while (lease.tryAcquire()) {
+            acquired++;
+        }
+
+        assertThat(acquired).isEqualTo(10);
+        assertThat(lease.drain()).isZero();
+    }
+
+    @Test
+    void drainTakesRemainingTokens() {
+        TokenLease lease = new TokenLease(3);
+        lease.refill(7, TTL_NANOS);
+        lease.tryAcquire();
+        lease.tryAcquire();
+
+        assertThat(lease.drain()).isEqualTo(5);
+        assertThat(lease.tryAcquire()).isFalse();
+        assertThat(lease.drain()).isZero();
+    }
+
+    @Test
+    void expiredLeaseKeepsTokensForDrain() {
+        TokenLease lease = new TokenLease(2);
+        lease.refill(5, 0);
+
+        assertThat(lease.isExpired()).isTrue();
+        assertThat(lease.tryAcquire()).isFalse();
+        assertThat(lease.drain()).isEqualTo(5);
+    }
+
+    @Test
+    void refillReplacesPreviousLease() {
+        TokenLease lease = new TokenLease(2);
+        lease.refill(5, TTL_NANOS);
+        lease.refill(3, TTL_NANOS);
+
+        assertThat(lease.drain()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentAcquireAndDrainNeverHandOutATokenTwice() throws InterruptedException {
+        int threads = 8;
+        long granted = 200_000;
+        TokenLease lease = new TokenLease(threads);
+        lease.refill(granted, TTL_NANOS);
+        AtomicLong acquired = new AtomicLong();
+        AtomicLong drained = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(() -> {
+                await(start);
+                long count = 0;
+                while (lease.tryAcquire()) {
+                    count++;
+                }
+                acquired.addAndGet(count);
+            }));
+        }
+        workers.add(new Thread(() -> {
+            await(start);
+            drained.addAndGet(lease.drain());
+        }));
+
+        workers.forEach(Thread::start);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertThat(acquired.get() + drained.get() + lease.drain()).isEqualTo(granted);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
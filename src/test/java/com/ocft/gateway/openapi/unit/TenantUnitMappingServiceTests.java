@@ -0,0 +1,51 @@
+package com.ocft.gateway.openapi.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantUnitMappingServiceTests {
+
+    private final TenantUnitJpaRepository jpaRepository = mock(TenantUnitJpaRepository.class);
+    private final TenantUnitMappingService service = new TenantUnitMappingService(jpaRepository,
+            mock(ReactiveStringRedisTemplate.class), 100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+    @Test
+    void cachedUnitDistinguishesNotCachedFromUnknownTenant() {
+        TenantUnitEntity mapping = new TenantUnitEntity();
+        mapping.setTenantId("tenant-1");
+        mapping.setUnit("LA");
+        when(jpaRepository.findById("tenant-1")).thenReturn(Optional.of(mapping));
+        when(jpaRepository.findById("tenant-2")).thenReturn(Optional.empty());
+
+        assertThat(service.getCachedUnit("tenant-1")).isNull();
+        assertThat(service.getCachedUnit("tenant-2")).isNull();
+
+        assertThat(service.getUnitByTenantId("tenant-1").block(Duration.ofSeconds(5))).contains("LA");
+        assertThat(service.getUnitByTenantId("tenant-2").block(Duration.ofSeconds(5))).isEmpty();
+
+        assertThat(service.getCachedUnit("tenant-1")).isEqualTo("LA");
+        assertThat(service.getCachedUnit("tenant-2")).isEqualTo(TenantUnitMappingService.NO_UNIT);
+        // 未知租户也被缓存，不会再次查询数据库
+        service.getUnitByTenantId("tenant-2").block(Duration.ofSeconds(5));
+        verify(jpaRepository, times(1)).findById("tenant-2");
+    }
+
+    @Test
+    void invalidatedTenantIsNoLongerCached() {
+        when(jpaRepository.findById("tenant-1")).thenReturn(Optional.empty());
+        service.getUnitByTenantId("tenant-1").block(Duration.ofSeconds(5));
+
+        service.invalidate("tenant-1");
+
+        assertThat(service.getCachedUnit("tenant-1")).isNull();
+    }
+}
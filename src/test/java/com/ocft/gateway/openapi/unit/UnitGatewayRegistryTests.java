@@ -0,0 +1,62 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UnitGatewayRegistryTests {
+
+    private final ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveHashOperations<String, String, String> hashOperations = mock(ReactiveHashOperations.class);
+    private UnitGatewayRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.listenToChannel(UnitGatewayRegistry.REFRESH_UNITS_CHANNEL)).thenReturn(Flux.never());
+        when(redisTemplate.<String, String>opsForHash()).thenReturn(hashOperations);
+        registry = new UnitGatewayRegistry(mock(UnitGatewayJpaRepository.class), redisTemplate, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    void laterReloadIsNotOverwrittenBySlowerEarlierOne() {
+        // 启动时的加载读到的是旧地址，而且很慢；紧接着的刷新通知读到新地址
+        when(hashOperations.entries(UnitGatewayRegistry.UNITS_KEY)).thenReturn(
+                Flux.just(Map.entry("LA", "http://old-l2:8080")).delayElements(Duration.ofMillis(300)),
+                Flux.just(Map.entry("LA", "http://new-l2:8080")));
+        registry.init();
+        registry.reload().subscribe();
+
+        // 观察足够长的时间，覆盖慢的那次读取完成的时刻
+        List<Map<String, UnitTarget>> installed = registry.changes()
+                .take(Duration.ofMillis(800))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(installed).hasSize(2);
+        assertThat(installed.get(0).get("LA").getInstances())
+                .extracting(UnitInstance::getGatewayUri)
+                .containsExactly(URI.create("http://old-l2:8080"));
+        assertThat(registry.lookup("LA").getInstances())
+                .extracting(UnitInstance::getGatewayUri)
+                .containsExactly(URI.create("http://new-l2:8080"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ocft.gateway.openapi.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnitGatewaySpecTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void addressOnlyIsStoredAsPlainString() throws Exception {
+        String value = UnitGatewaySpec.of("http://l2-a:8080").toRedisValue(objectMapper);
+
+        assertThat(value).isEqualTo("http://l2-a:8080");
+        assertThat(UnitGatewaySpec.fromRedisValue(value, objectMapper)).isEqualTo(UnitGatewaySpec.of("http://l2-a:8080"));
+    }
+
+    @Test
+    void poolOverrideSurvivesRedisRoundTripAndReachesTheInstances() throws Exception {
+        UnitPoolSettings pool = new UnitPoolSettings();
+        pool.setMaxConnections(20);
+        pool.setKeepAlive(false);
+        String value = new UnitGatewaySpec("http://l2-a:8080,http://l2-b:8080", pool).toRedisValue(objectMapper);
+
+        UnitGatewaySpec spec = UnitGatewaySpec.fromRedisValue(value, objectMapper);
+        assertThat(spec.pool()).isEqualTo(pool);
+
+        // 注册表加载同一个 Hash 值，每个实例的连接池标识都带上覆盖的参数
+        UnitGatewayRegistry registry = new UnitGatewayRegistry(null, null, objectMapper);
+        registry.install(Map.of("LA", value));
+        UnitTarget target = registry.lookup("LA");
+        assertThat(target.getInstances()).hasSize(2).allSatisfy(instance -> {
+            UnitPoolKey key = instance.getPoolKey();
+            assertThat(key.settings()).isEqualTo(pool);
+            UnitPoolSettings defaults = new UnitPoolSettings();
+            defaults.setMaxConnections(500);
+            defaults.setPendingAcquireMaxCount(1000);
+            defaults.setKeepAlive(true);
+            UnitPoolSettings effective = key.settings().withDefaults(defaults);
+            assertThat(effective.getMaxConnections()).isEqualTo(20);
+            assertThat(effective.getKeepAlive()).isFalse();
+            assertThat(effective.getPendingAcquireMaxCount()).isEqualTo(1000);
+        });
+    }
+}
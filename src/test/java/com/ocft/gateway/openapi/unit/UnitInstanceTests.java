@@ -0,0 +1,51 @@
+package com.ocft.gateway.openapi.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnitInstanceTests {
+
+    private final UnitInstance instance = new UnitInstance("LA", 0, URI.create("http://l2-a:8080/"), null);
+
+    @Test
+    void rewriteKeepsEncodedPathAndQuery() {
+        URI rewritten = instance.rewrite(URI.create("http://gateway/items/a%20b?q=x%26y"));
+
+        assertThat(rewritten).isEqualTo(URI.create("http://l2-a:8080/items/a%20b?q=x%26y"));
+    }
+
+    @Test
+    void routeWithoutMetadataUsesSharedRoute() {
+        assertThat(instance.routeFor(route(Map.of()))).isSameAs(instance.getRoute());
+        assertThat(instance.routeFor(null)).isSameAs(instance.getRoute());
+    }
+
+    @Test
+    void routeMetadataIsCarriedToInstanceRoute() {
+        Route original = route(Map.of(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, 200, RouteMetadataUtils.CONNECT_TIMEOUT_ATTR, 50));
+
+        Route routed = instance.routeFor(original);
+
+        assertThat(routed.getUri()).isEqualTo(instance.getGatewayUri());
+        assertThat(routed.getId()).isEqualTo(instance.getRoute().getId());
+        assertThat(routed.getMetadata()).containsEntry(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, 200)
+                .containsEntry(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR, 50);
+        // 同一个原路由只构建一次
+        assertThat(instance.routeFor(original)).isSameAs(routed);
+    }
+
+    private static Route route(Map<String, Object> metadata) {
+        return Route.async()
+                .id("orders")
+                .uri(URI.create("http://placeholder"))
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+    }
+}